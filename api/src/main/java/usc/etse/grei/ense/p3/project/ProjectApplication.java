@@ -2,11 +2,13 @@ package usc.etse.grei.ense.p3.project;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Clase principal de la API que inicia su ejecución
  */
 @SpringBootApplication
+@EnableScheduling
 public class ProjectApplication {
 
 	/**
@@ -0,0 +1,27 @@
+package usc.etse.grei.ense.p3.project.configuration;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import usc.etse.grei.ense.p3.project.model.CountMode;
+
+import java.util.Locale;
+
+/**
+ * Conversor del parámetro count de los listados, que admite el modo de recuento sin distinguir mayúsculas
+ */
+@Component
+public class CountModeConverter implements Converter<String, CountMode> {
+
+	/**
+	 * Metodo que convierte el valor del parámetro en un modo de recuento
+	 *
+	 * @param source valor del parámetro (exact, estimated o none)
+	 * @return modo de recuento
+	 * @throws IllegalArgumentException si el valor no corresponde a ningún modo
+	 */
+	@Override
+	public CountMode convert(String source) {
+		return CountMode.valueOf(source.trim().toUpperCase(Locale.ROOT));
+	}
+
+}
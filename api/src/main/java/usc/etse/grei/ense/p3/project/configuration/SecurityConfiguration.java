@@ -77,7 +77,10 @@ public class SecurityConfiguration {
 		http
 				.csrf(AbstractHttpConfigurer::disable)
 				.cors(Customizer.withDefaults())
-				.authorizeHttpRequests(authz -> authz.anyRequest().permitAll())
+				.authorizeHttpRequests(authz -> authz
+						.requestMatchers("/actuator/health").permitAll()
+						.requestMatchers("/actuator/**").hasRole("ADMIN")
+						.anyRequest().permitAll())
 				.addFilterBefore(new AuthenticationFilter(authManager, tokenSignKey()), UsernamePasswordAuthenticationFilter.class)
 				.addFilterBefore(new AuthorizationFilter(authManager, tokenSignKey()), UsernamePasswordAuthenticationFilter.class)
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
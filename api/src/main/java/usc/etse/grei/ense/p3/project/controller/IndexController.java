@@ -0,0 +1,94 @@
+package usc.etse.grei.ense.p3.project.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import usc.etse.grei.ense.p3.project.handler.ResponseHandler;
+import usc.etse.grei.ense.p3.project.model.IndexReport;
+import usc.etse.grei.ense.p3.project.model.Result;
+import usc.etse.grei.ense.p3.project.service.IndexService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Controlador de las operaciones sobre índices
+ */
+@RestController
+@RequestMapping("indexes")
+@Tag(name = "Index API", description = "Index related operations")
+@SecurityRequirement(name = "JWT")
+public class IndexController {
+
+	private final IndexService indexes;
+
+	@Autowired
+	public IndexController(IndexService indexes) {
+		this.indexes = indexes;
+	}
+
+	/**
+	 * Metodo que gestiona la operación GET /indexes
+	 *
+	 * @return respuesta HTTP
+	 */
+	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(
+			operationId = "getIndexes",
+			summary = "Get indexes",
+			description = "Get a report of missing, unused and undeclared indexes"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The indexes report",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = IndexReport.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> getIndexes() {
+
+		Result<List<IndexReport>> result = indexes.report();
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
+
+			Link self = linkTo(methodOn(IndexController.class).getIndexes()).withSelfRel();
+
+			links.add(self);
+
+		}
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package usc.etse.grei.ense.p3.project.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import usc.etse.grei.ense.p3.project.handler.ResponseHandler;
+import usc.etse.grei.ense.p3.project.model.Job;
+import usc.etse.grei.ense.p3.project.model.Result;
+import usc.etse.grei.ense.p3.project.service.JobService;
+
+import java.util.ArrayList;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Controlador de las operaciones sobre trabajos de propagación
+ */
+@RestController
+@RequestMapping("jobs")
+@Tag(name = "Job API", description = "Job related operations")
+@SecurityRequirement(name = "JWT")
+public class JobController {
+
+	private final JobService jobs;
+
+	@Autowired
+	public JobController(JobService jobs) {
+		this.jobs = jobs;
+	}
+
+	/**
+	 * Metodo que gestiona la operación GET /jobs/{id}
+	 *
+	 * @param id identificador del trabajo
+	 * @return respuesta HTTP
+	 */
+	@GetMapping(path = "{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('USER')")
+	@Operation(
+			operationId = "getJob",
+			summary = "Get job",
+			description = "Get the status of a propagation job by id"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The job details",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Job.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "404",
+					description = "Job not found",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> getJob(@PathVariable("id") @NotBlank String id) {
+
+		Result<Job> result = jobs.get(id);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
+
+			Link self = linkTo(methodOn(JobController.class).getJob(id)).withSelfRel();
+
+			links.add(self);
+
+		}
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
+}
\ No newline at end of file
@@ -1,35 +1,50 @@
 package usc.etse.grei.ense.p3.project.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.LinkRelationProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import usc.etse.grei.ense.p3.project.handler.ResponseHandler;
 import usc.etse.grei.ense.p3.project.model.*;
 import usc.etse.grei.ense.p3.project.service.AssessmentService;
 import usc.etse.grei.ense.p3.project.service.MovieService;
+import usc.etse.grei.ense.p3.project.service.RatingService;
+import usc.etse.grei.ense.p3.project.service.SuggestService;
 import usc.etse.grei.ense.p3.project.util.SortUtil;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -43,15 +58,26 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @SecurityRequirement(name = "JWT")
 public class MovieController {
 
+	private static final Logger logger = LoggerFactory.getLogger(MovieController.class);
+	private static final String NDJSON_VALUE = "application/x-ndjson";
+
 	private final MovieService movies;
 	private final AssessmentService assessments;
+	private final RatingService ratings;
+	private final SuggestService suggest;
 	private final LinkRelationProvider relationProvider;
+	private final ObjectMapper mapper;
+	private final Duration exportTimeout;
 
 	@Autowired
-	public MovieController(MovieService movies, AssessmentService assessments, LinkRelationProvider relationProvider) {
+	public MovieController(MovieService movies, AssessmentService assessments, RatingService ratings, SuggestService suggest, LinkRelationProvider relationProvider, ObjectMapper mapper, @Value("${api.export.timeout:30m}") Duration exportTimeout) {
 		this.movies = movies;
 		this.assessments = assessments;
+		this.ratings = ratings;
+		this.suggest = suggest;
 		this.relationProvider = relationProvider;
+		this.mapper = mapper;
+		this.exportTimeout = exportTimeout;
 	}
 
 	/**
@@ -65,6 +91,9 @@ public class MovieController {
 	 * @param releaseDate criterio de búsqueda por fecha de estreno
 	 * @param cast        criterio de búsqueda por reparto
 	 * @param crew        criterio de búsqueda por equipo de trabajo
+	 * @param q           texto de búsqueda ordenado por relevancia
+	 * @param count       modo de recuento del total (exact, estimated o none)
+	 * @param cursor      cursor de continuación (activa la paginación por cursor)
 	 * @return respuesta HTTP
 	 */
 	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
@@ -109,147 +138,295 @@ public class MovieController {
 			@RequestParam(name = "title", required = false, defaultValue = "") String title,
 			@RequestParam(name = "status", required = false, defaultValue = "") String status,
 			@RequestParam(name = "cast", required = false, defaultValue = "") List<String> cast,
-			@RequestParam(name = "crew", required = false, defaultValue = "") List<String> crew
+			@RequestParam(name = "crew", required = false, defaultValue = "") List<String> crew,
+			@RequestParam(name = "q", required = false, defaultValue = "") String q,
+			@RequestParam(name = "count", required = false, defaultValue = "exact") CountMode count,
+			@RequestParam(name = "cursor", required = false) String cursor
 	) {
 
 		List<Sort.Order> criteria = SortUtil.getCriteria(sort);
 
-		ExampleMatcher matcher = ExampleMatcher
-				.matchingAll()
-				.withIgnoreCase()
-				.withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING);
+		Example<Movie> filter;
+		List<Cast> castList;
+		List<Crew> crewList;
 
-		Movie filterMovie = new Movie();
+		try {
 
-		Date parsedDate;
+			filter = getFilter(releaseDate, title, status);
+			castList = getCastList(cast);
+			crewList = getCrewList(crew);
 
-		if (!releaseDate.isBlank()) {
+		} catch (IllegalArgumentException e) {
 
-			try {
+			return ResponseHandler.generateResponse(true, e.getMessage(), 0, null, new ArrayList<>(), HttpStatus.BAD_REQUEST);
 
-				LocalDate date = LocalDate.parse(releaseDate);
+		}
 
-				parsedDate = new Date(date.getDayOfMonth(), date.getMonthValue(), date.getYear());
+		if (cursor != null) {
 
-				filterMovie.setReleaseDate(parsedDate);
+			if (!q.isBlank()) {
+				return ResponseHandler.generateResponse(true, "Cursor pagination is not available for text search", 0, null, new ArrayList<>(), HttpStatus.BAD_REQUEST);
+			}
 
-			} catch (Exception e) {
+			Result<Window<Movie>> result = movies.scroll(cursor, size, Sort.by(criteria), filter, genres, keywords, castList, crewList);
+			ArrayList<Link> links = new ArrayList<>();
+
+			if (result.getResult() == null) {
+				return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), null, links, result.getStatus());
+			}
 
-				return ResponseHandler.generateResponse(true, e.getMessage(), 0, null, new ArrayList<>(), HttpStatus.BAD_REQUEST);
+			Window<Movie> movies = result.getResult();
+
+			Link self = linkTo(methodOn(MovieController.class).getMovies(page, size, sort, keywords, genres, releaseDate, title, status, cast, crew, q, null, cursor)).withSelfRel();
+			Link first = linkTo(methodOn(MovieController.class).getMovies(page, size, sort, keywords, genres, releaseDate, title, status, cast, crew, q, null, "")).withRel(IanaLinkRelations.FIRST);
+			Link resource = linkTo(methodOn(MovieController.class).getMovie(null, new ArrayList<>(), null, null, null, null)).withRel(relationProvider.getItemResourceRelFor(Movie.class));
+
+			links.add(self);
+			links.add(first);
+
+			if (movies.hasNext()) {
+
+				String nextCursor = this.movies.cursor(movies.positionAt(movies.size() - 1), Sort.by(criteria));
+				Link next = linkTo(methodOn(MovieController.class).getMovies(page, size, sort, keywords, genres, releaseDate, title, status, cast, crew, q, null, nextCursor)).withRel(IanaLinkRelations.NEXT);
+
+				links.add(next);
 
 			}
 
+			links.add(resource);
+
+			return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), movies.getContent().toArray(), links, result.getStatus());
+
 		}
 
-		List<Cast> castList = new ArrayList<>();
+		Result<Page<Movie>> result = movies.get(page, size, Sort.by(criteria), filter, genres, keywords, castList, crewList, q, count);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
 
-		if (!cast.isEmpty()) {
+			Page<Movie> movies = result.getResult();
+			Pageable metadata = movies.getPageable();
 
-			for (String castString : cast) {
+			Link self = linkTo(methodOn(MovieController.class).getMovies(page, size, sort, keywords, genres, releaseDate, title, status, cast, crew, q, count, null)).withSelfRel();
+			Link first = linkTo(methodOn(MovieController.class).getMovies(metadata.first().getPageNumber(), size, sort, keywords, genres, releaseDate, title, status, cast, crew, q, count, null)).withRel(IanaLinkRelations.FIRST);
+			Link next = linkTo(methodOn(MovieController.class).getMovies(metadata.next().getPageNumber(), size, sort, keywords, genres, releaseDate, title, status, cast, crew, q, count, null)).withRel(IanaLinkRelations.NEXT);
+			Link previous = linkTo(methodOn(MovieController.class).getMovies(metadata.previousOrFirst().getPageNumber(), size, sort, keywords, genres, releaseDate, title, status, cast, crew, q, count, null)).withRel(IanaLinkRelations.PREVIOUS);
+			Link last = linkTo(methodOn(MovieController.class).getMovies(movies.getTotalPages() - 1, size, sort, keywords, genres, releaseDate, title, status, cast, crew, q, count, null)).withRel(IanaLinkRelations.LAST);
+			Link resource = linkTo(methodOn(MovieController.class).getMovie(null, new ArrayList<>(), null, null, null, null)).withRel(relationProvider.getItemResourceRelFor(Movie.class));
 
-				Cast newCast = new Cast();
+			links.add(self);
+			links.add(first);
 
-				String[] parts = castString.split("-", 3);
+			if (movies.hasNext()) {
+				links.add(next);
+			}
 
-				if (parts.length != 3) {
-					return ResponseHandler.generateResponse(true, "Invalid cast", 0, null, new ArrayList<>(), HttpStatus.BAD_REQUEST);
-				}
+			links.add(previous);
 
-				if (!parts[0].equals("*")) {
-					newCast.setId(parts[0]);
-				}
+			if (count != CountMode.NONE) {
+				links.add(last);
+			}
 
-				if (!parts[1].equals("*")) {
-					newCast.setName(parts[1]);
-				}
+			links.add(resource);
 
-				if (!parts[2].equals("*")) {
-					newCast.setCharacter(parts[2]);
-				}
+		}
 
-				castList.add(newCast);
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult().stream().toArray(), links, result.getStatus());
 
-			}
+	}
+
+	/**
+	 * Metodo que gestiona la operación GET /movies/suggest
+	 *
+	 * @param prefix prefijo del título
+	 * @param size   número máximo de sugerencias
+	 * @return respuesta HTTP
+	 */
+	@GetMapping(path = "suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('USER')")
+	@Operation(
+			operationId = "suggestMovies",
+			summary = "Suggest movies",
+			description = "Get the most popular movies whose title starts with a prefix"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The movie suggestions",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Suggestion.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> suggestMovies(
+			@RequestParam(name = "prefix", required = false, defaultValue = "") String prefix,
+			@RequestParam(name = "size", required = false, defaultValue = "10") int size
+	) {
+
+		Result<List<Suggestion>> result = suggest.suggestMovies(prefix, size);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
+
+			Link self = linkTo(methodOn(MovieController.class).suggestMovies(prefix, size)).withSelfRel();
+			Link resource = linkTo(methodOn(MovieController.class).getMovie(null, new ArrayList<>(), null, null, null, null)).withRel(relationProvider.getItemResourceRelFor(Movie.class));
+
+			links.add(self);
+			links.add(resource);
 
 		}
 
-		List<Crew> crewList = new ArrayList<>();
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
+	/**
+	 * Metodo que gestiona la operación GET /movies/export
+	 *
+	 * @param sort        criterio de ordenación
+	 * @param keywords    criterio de búsqueda por palabras clave
+	 * @param genres      criterio de búsqueda por género
+	 * @param releaseDate criterio de búsqueda por fecha de estreno
+	 * @param title       criterio de búsqueda por título
+	 * @param status      criterio de búsqueda por estado
+	 * @param cast        criterio de búsqueda por reparto
+	 * @param crew        criterio de búsqueda por equipo de trabajo
+	 * @param fields      campos incluidos en cada película
+	 * @param response    respuesta HTTP en la que se escriben las películas
+	 * @return tarea asíncrona que escribe una película JSON por línea, con un tiempo máximo propio de la exportación
+	 */
+	@GetMapping(path = "export", produces = {NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(
+			operationId = "exportMovies",
+			summary = "Export movies",
+			description = "Stream the movies matching the filters as newline-delimited JSON"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The movies, one per line",
+					content = @Content(
+							mediaType = NDJSON_VALUE,
+							schema = @Schema(implementation = Movie.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			)
+	})
+	WebAsyncTask<ResponseEntity<Object>> exportMovies(
+			@RequestParam(name = "sort", required = false, defaultValue = "") List<String> sort,
+			@RequestParam(name = "keywords", required = false, defaultValue = "") List<String> keywords,
+			@RequestParam(name = "genres", required = false, defaultValue = "") List<String> genres,
+			@RequestParam(name = "releaseDate", required = false, defaultValue = "") String releaseDate,
+			@RequestParam(name = "title", required = false, defaultValue = "") String title,
+			@RequestParam(name = "status", required = false, defaultValue = "") String status,
+			@RequestParam(name = "cast", required = false, defaultValue = "") List<String> cast,
+			@RequestParam(name = "crew", required = false, defaultValue = "") List<String> crew,
+			@RequestParam(name = "fields", required = false, defaultValue = "") List<String> fields,
+			@Parameter(hidden = true) HttpServletResponse response
+	) {
 
-		if (!crew.isEmpty()) {
+		Example<Movie> filter;
+		List<Cast> castList;
+		List<Crew> crewList;
 
-			for (String crewString : crew) {
+		try {
 
-				Crew newCrew = new Crew();
+			filter = getFilter(releaseDate, title, status);
+			castList = getCastList(cast);
+			crewList = getCrewList(crew);
 
-				String[] parts = crewString.split("-", 3);
+		} catch (IllegalArgumentException e) {
 
-				if (parts.length != 3) {
-					return ResponseHandler.generateResponse(true, "Invalid crew", 0, null, new ArrayList<>(), HttpStatus.BAD_REQUEST);
-				}
+			ResponseEntity<Object> error = ResponseHandler.generateResponse(true, e.getMessage(), 0, null, new ArrayList<>(), HttpStatus.BAD_REQUEST);
 
-				if (!parts[0].equals("*")) {
-					newCrew.setId(parts[0]);
-				}
+			return new WebAsyncTask<>(() -> error);
 
-				if (!parts[1].equals("*")) {
-					newCrew.setName(parts[1]);
-				}
+		}
 
-				if (!parts[2].equals("*")) {
-					newCrew.setJob(parts[2]);
-				}
+		Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
+
+		return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
 
-				crewList.add(newCrew);
+			Result<Stream<Movie>> result = movies.export(Sort.by(SortUtil.getCriteria(sort)), filter, genres, keywords, castList, crewList, fields);
 
+			if (result.getResult() == null) {
+				return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), null, new ArrayList<>(), result.getStatus());
 			}
 
-		}
+			long exported = 0;
 
-		if (!title.isBlank()) {
-			filterMovie.setTitle(title);
-		}
+			try (Stream<Movie> stream = result.getResult()) {
 
-		if (!status.isBlank()) {
-			filterMovie.setStatus(Status.valueOf(status.toUpperCase()));
-		}
+				response.setStatus(HttpStatus.OK.value());
+				response.setContentType(NDJSON_VALUE);
+				response.setHeader(HttpHeaders.LINK, all.toString());
 
-		Example<Movie> filter = Example.of(
-				filterMovie,
-				matcher
-		);
+				OutputStream out = response.getOutputStream();
+				Iterator<Movie> iterator = stream.iterator();
 
-		Result<Page<Movie>> result = movies.get(page, size, Sort.by(criteria), filter, genres, keywords, castList, crewList);
-		ArrayList<Link> links = new ArrayList<>();
+				while (iterator.hasNext()) {
+					out.write(mapper.writeValueAsBytes(iterator.next()));
+					out.write('\n');
+					exported++;
+				}
 
-		if (result.getResult() != null) {
+				out.flush();
 
-			Page<Movie> movies = result.getResult();
-			Pageable metadata = movies.getPageable();
+			} catch (Exception e) {
 
-			Link self = linkTo(methodOn(MovieController.class).getMovies(page, size, sort, keywords, genres, releaseDate, title, status, cast, crew)).withSelfRel();
-			Link first = linkTo(methodOn(MovieController.class).getMovies(metadata.first().getPageNumber(), size, sort, keywords, genres, releaseDate, title, status, cast, crew)).withRel(IanaLinkRelations.FIRST);
-			Link next = linkTo(methodOn(MovieController.class).getMovies(metadata.next().getPageNumber(), size, sort, keywords, genres, releaseDate, title, status, cast, crew)).withRel(IanaLinkRelations.NEXT);
-			Link previous = linkTo(methodOn(MovieController.class).getMovies(metadata.previousOrFirst().getPageNumber(), size, sort, keywords, genres, releaseDate, title, status, cast, crew)).withRel(IanaLinkRelations.PREVIOUS);
-			Link last = linkTo(methodOn(MovieController.class).getMovies(movies.getTotalPages() - 1, size, sort, keywords, genres, releaseDate, title, status, cast, crew)).withRel(IanaLinkRelations.LAST);
-			Link resource = linkTo(methodOn(MovieController.class).getMovie(null)).withRel(relationProvider.getItemResourceRelFor(Movie.class));
+				if (!response.isCommitted()) {
+					response.reset();
+					return ResponseHandler.generateResponse(true, e.getLocalizedMessage(), 0, null, new ArrayList<>(), HttpStatus.BAD_REQUEST);
+				}
 
-			links.add(self);
-			links.add(first);
-			links.add(next);
-			links.add(previous);
-			links.add(last);
-			links.add(resource);
+				// Una vez enviada la cabecera 200 no se puede añadir un error JSON al flujo NDJSON, por lo que la
+				// excepción interrumpe la conexión y el cliente recibe una respuesta incompleta
+				logger.warn("Movie export interrupted after {} movies: {}", exported, e.getLocalizedMessage());
+				throw e;
 
-		}
+			}
 
-		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult().stream().toArray(), links, result.getStatus());
+			return null;
+
+		});
 
 	}
 
 	/**
 	 * Metodo que gestiona la operación GET /movies/{id}
 	 *
-	 * @param id identificador de la película
+	 * @param id          identificador de la película
+	 * @param fields      campos devueltos
+	 * @param castLimit   número máximo de miembros del reparto
+	 * @param crewLimit   número máximo de miembros del equipo de trabajo
+	 * @param crewJob     trabajo por el que se filtra el equipo de trabajo
+	 * @param ifNoneMatch versiones de las que ya dispone el cliente
 	 * @return respuesta HTTP
 	 */
 	@GetMapping(path = "{id}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -268,6 +445,11 @@ public class MovieController {
 							schema = @Schema(implementation = Movie.class)
 					)
 			),
+			@ApiResponse(
+					responseCode = "304",
+					description = "The movie has not been modified",
+					content = @Content
+			),
 			@ApiResponse(
 					responseCode = "400",
 					description = "Bad request",
@@ -289,20 +471,28 @@ public class MovieController {
 					content = @Content
 			)
 	})
-	ResponseEntity<Object> getMovie(@PathVariable("id") String id) {
+	ResponseEntity<Object> getMovie(
+			@PathVariable("id") String id,
+			@RequestParam(name = "fields", required = false, defaultValue = "") List<String> fields,
+			@RequestParam(name = "cast.limit", required = false) Integer castLimit,
+			@RequestParam(name = "crew.limit", required = false) Integer crewLimit,
+			@RequestParam(name = "crew.job", required = false) String crewJob,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+	) {
 
-		Result<Movie> result = movies.get(id);
+		Result<Movie> result = movies.get(id, fields, castLimit, crewLimit, crewJob);
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(MovieController.class).getMovie(id)).withSelfRel();
+			Link self = linkTo(methodOn(MovieController.class).getMovie(id, fields, castLimit, crewLimit, crewJob, null)).withSelfRel();
 			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
 
 			links.add(self);
 			links.add(all);
 		}
-		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus(), ifNoneMatch);
 
 	}
 
@@ -356,7 +546,7 @@ public class MovieController {
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(MovieController.class).getMovie(result.getResult().getId())).withSelfRel();
+			Link self = linkTo(methodOn(MovieController.class).getMovie(result.getResult().getId(), new ArrayList<>(), null, null, null, null)).withSelfRel();
 			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
 
 			links.add(self);
@@ -367,11 +557,68 @@ public class MovieController {
 
 	}
 
+	/**
+	 * Metodo que gestiona la operación POST /movies/import
+	 *
+	 * @param input cuerpo de la petición con una película JSON por línea
+	 * @return respuesta HTTP
+	 */
+	@PostMapping(path = "import", consumes = NDJSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(
+			operationId = "importMovies",
+			summary = "Import movies",
+			description = "Insert the movies of a newline-delimited JSON body in batches",
+			requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+					content = @Content(
+							mediaType = NDJSON_VALUE,
+							schema = @Schema(implementation = Movie.class)
+					)
+			)
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The import report",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = ImportReport.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> importMovies(@Parameter(hidden = true) InputStream input) {
+
+		Result<ImportReport> result = movies.importMovies(input);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
+
+			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
+
+			links.add(all);
+
+		}
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
 	/**
 	 * Metodo que gestiona la operación PATCH /movies/{id}
 	 *
 	 * @param id      identificador de la película
 	 * @param updates lista de operaciones de modificación
+	 * @param ifMatch versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@PatchMapping(path = "{id}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -390,6 +637,14 @@ public class MovieController {
 							schema = @Schema(implementation = Movie.class)
 					)
 			),
+			@ApiResponse(
+					responseCode = "202",
+					description = "The movie has been updated and the title propagation is pending",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Movie.class)
+					)
+			),
 			@ApiResponse(
 					responseCode = "400",
 					description = "Bad request",
@@ -409,21 +664,30 @@ public class MovieController {
 					responseCode = "404",
 					description = "Movie not found",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The movie has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> updateMovie(@PathVariable("id") @NotBlank String id, @RequestBody List<Map<String, Object>> updates) {
+	ResponseEntity<Object> updateMovie(@PathVariable("id") @NotBlank String id, @RequestBody List<Map<String, Object>> updates, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<Movie> result = movies.update(id, updates);
+		Result<Movie> result = movies.update(id, updates, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(MovieController.class).getMovie(result.getResult().getId())).withSelfRel();
+			Link self = linkTo(methodOn(MovieController.class).getMovie(result.getResult().getId(), new ArrayList<>(), null, null, null, null)).withSelfRel();
 			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
 
 			links.add(self);
 			links.add(all);
 
+			if (result.getJob() != null) {
+				links.add(linkTo(methodOn(JobController.class).getJob(result.getJob())).withRel("job"));
+			}
+
 		}
 
 		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
@@ -441,7 +705,7 @@ public class MovieController {
 	@Operation(
 			operationId = "deleteMovie",
 			summary = "Delete movie",
-			description = "Delete a movie by id"
+			description = "Delete a movie by id. The movie can be restored until the restore window expires, after which it is purged along with its assessments"
 	)
 	@ApiResponses({
 			@ApiResponse(
@@ -477,6 +741,121 @@ public class MovieController {
 
 		if (result.getResult() != null) {
 
+			Link restore = linkTo(methodOn(MovieController.class).restoreMovie(id)).withRel("restore");
+			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
+
+			links.add(restore);
+			links.add(all);
+
+		}
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
+	/**
+	 * Metodo que gestiona la operación POST /movies/{id}/restore
+	 *
+	 * @param id identificador de la película
+	 * @return respuesta HTTP
+	 */
+	@PostMapping(path = "{id}/restore", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(
+			operationId = "restoreMovie",
+			summary = "Restore movie",
+			description = "Restore a deleted movie before its restore window expires"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The movie has been restored",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Movie.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "404",
+					description = "Movie not found or restore window expired",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> restoreMovie(@PathVariable("id") @NotBlank String id) {
+
+		Result<Movie> result = movies.restore(id);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
+
+			Link self = linkTo(methodOn(MovieController.class).getMovie(result.getResult().getId(), new ArrayList<>(), null, null, null, null)).withSelfRel();
+			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
+
+			links.add(self);
+			links.add(all);
+
+		}
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
+	/**
+	 * Metodo que gestiona la operación POST /movies/ratings
+	 *
+	 * @return respuesta HTTP
+	 */
+	@PostMapping(path = "ratings", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(
+			operationId = "rebuildRatings",
+			summary = "Rebuild ratings",
+			description = "Recompute the aggregated ratings of every movie from its assessments"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The ratings have been rebuilt",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> rebuildRatings() {
+
+		Result<Void> result = ratings.rebuild();
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (!result.isError()) {
+
 			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
 
 			links.add(all);
@@ -490,8 +869,9 @@ public class MovieController {
 	/**
 	 * Metodo que gestiona la operación POST /movies/{id}/cast
 	 *
-	 * @param id   identificador de la película
-	 * @param cast actor añadido
+	 * @param id      identificador de la película
+	 * @param cast    actor añadido
+	 * @param ifMatch versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@PostMapping(path = "{id}/cast", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -534,16 +914,21 @@ public class MovieController {
 					responseCode = "409",
 					description = "Combination person-character is already in cast",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The movie has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> createCast(@PathVariable("id") @NotBlank String id, @RequestBody @Validated(OnRelation.class) Cast cast) {
+	ResponseEntity<Object> createCast(@PathVariable("id") @NotBlank String id, @RequestBody @Validated(OnRelation.class) Cast cast, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<Cast> result = movies.createCast(id, cast);
+		Result<Cast> result = movies.createCast(id, cast, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(MovieController.class).getMovie(id)).withSelfRel();
+			Link self = linkTo(methodOn(MovieController.class).getMovie(id, new ArrayList<>(), null, null, null, null)).withSelfRel();
 			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
 
 			links.add(self);
@@ -560,6 +945,7 @@ public class MovieController {
 	 * @param id         identificador de la película
 	 * @param relationId identificador de la relación
 	 * @param updates    lista de operaciones de modificación
+	 * @param ifMatch    versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@PatchMapping(path = "{id}/cast/{relationId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -602,16 +988,21 @@ public class MovieController {
 					responseCode = "409",
 					description = "Combination person-character is already in cast",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The movie has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> updateCast(@PathVariable("id") @NotBlank String id, @PathVariable("relationId") @NotNull Integer relationId, @RequestBody List<Map<String, Object>> updates) {
+	ResponseEntity<Object> updateCast(@PathVariable("id") @NotBlank String id, @PathVariable("relationId") @NotNull Integer relationId, @RequestBody List<Map<String, Object>> updates, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<Cast> result = movies.updateCast(id, relationId, updates);
+		Result<Cast> result = movies.updateCast(id, relationId, updates, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(MovieController.class).getMovie(id)).withSelfRel();
+			Link self = linkTo(methodOn(MovieController.class).getMovie(id, new ArrayList<>(), null, null, null, null)).withSelfRel();
 			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
 
 			links.add(self);
@@ -627,6 +1018,7 @@ public class MovieController {
 	 *
 	 * @param id         identificador de la película
 	 * @param relationId identificador de la relación
+	 * @param ifMatch    versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@DeleteMapping(path = "{id}/cast/{relationId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -661,11 +1053,16 @@ public class MovieController {
 					responseCode = "404",
 					description = "Movie not found",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The movie has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> deleteCast(@PathVariable("id") @NotBlank String id, @PathVariable("relationId") @NotNull Integer relationId) {
+	ResponseEntity<Object> deleteCast(@PathVariable("id") @NotBlank String id, @PathVariable("relationId") @NotNull Integer relationId, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<Cast> result = movies.deleteCast(id, relationId);
+		Result<Cast> result = movies.deleteCast(id, relationId, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
@@ -683,8 +1080,9 @@ public class MovieController {
 	/**
 	 * Metodo que gestiona la operación POST /movies/{id}/crew
 	 *
-	 * @param id   identificador de la película
-	 * @param crew trabajador añadido
+	 * @param id      identificador de la película
+	 * @param crew    trabajador añadido
+	 * @param ifMatch versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@PostMapping(path = "{id}/crew", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -727,16 +1125,21 @@ public class MovieController {
 					responseCode = "409",
 					description = "Combination person-job is already in crew",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The movie has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> createCrew(@PathVariable("id") @NotBlank String id, @RequestBody @Validated(OnRelation.class) Crew crew) {
+	ResponseEntity<Object> createCrew(@PathVariable("id") @NotBlank String id, @RequestBody @Validated(OnRelation.class) Crew crew, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<Crew> result = movies.createCrew(id, crew);
+		Result<Crew> result = movies.createCrew(id, crew, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(MovieController.class).getMovie(id)).withSelfRel();
+			Link self = linkTo(methodOn(MovieController.class).getMovie(id, new ArrayList<>(), null, null, null, null)).withSelfRel();
 			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
 
 			links.add(self);
@@ -753,6 +1156,7 @@ public class MovieController {
 	 * @param id         identificador de la película
 	 * @param relationId identificador de la relación
 	 * @param updates    lista de operaciones de modificación
+	 * @param ifMatch    versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@PatchMapping(path = "{id}/crew/{relationId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -795,16 +1199,21 @@ public class MovieController {
 					responseCode = "409",
 					description = "Combination person-job is already in crew",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The movie has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> updateCrew(@PathVariable("id") @NotBlank String id, @PathVariable("relationId") @NotNull Integer relationId, @RequestBody List<Map<String, Object>> updates) {
+	ResponseEntity<Object> updateCrew(@PathVariable("id") @NotBlank String id, @PathVariable("relationId") @NotNull Integer relationId, @RequestBody List<Map<String, Object>> updates, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<Crew> result = movies.updateCrew(id, relationId, updates);
+		Result<Crew> result = movies.updateCrew(id, relationId, updates, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(MovieController.class).getMovie(id)).withSelfRel();
+			Link self = linkTo(methodOn(MovieController.class).getMovie(id, new ArrayList<>(), null, null, null, null)).withSelfRel();
 			Link all = linkTo(MovieController.class).withRel(relationProvider.getCollectionResourceRelFor(Movie.class));
 
 			links.add(self);
@@ -820,6 +1229,7 @@ public class MovieController {
 	 *
 	 * @param id         identificador de la película
 	 * @param relationId identificador de la relacion
+	 * @param ifMatch    versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@DeleteMapping(path = "{id}/crew/{relationId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -854,11 +1264,16 @@ public class MovieController {
 					responseCode = "404",
 					description = "Movie not found",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The movie has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> deleteCrew(@PathVariable("id") @NotBlank String id, @PathVariable("relationId") @NotNull Integer relationId) {
+	ResponseEntity<Object> deleteCrew(@PathVariable("id") @NotBlank String id, @PathVariable("relationId") @NotNull Integer relationId, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<Crew> result = movies.deleteCrew(id, relationId);
+		Result<Crew> result = movies.deleteCrew(id, relationId, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
@@ -880,6 +1295,7 @@ public class MovieController {
 	 * @param page    número de página
 	 * @param size    número de comentarios por página
 	 * @param sort    criterio de ordenación
+	 * @param count   modo de recuento del total (exact, estimated o none)
 	 * @return respuesta HTTP
 	 */
 	@GetMapping(path = "{movieId}/assessments", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -923,7 +1339,8 @@ public class MovieController {
 			@PathVariable("movieId") @NotBlank String movieId,
 			@RequestParam(name = "page", defaultValue = "0") int page,
 			@RequestParam(name = "size", defaultValue = "20") int size,
-			@RequestParam(name = "sort", defaultValue = "") List<String> sort
+			@RequestParam(name = "sort", defaultValue = "") List<String> sort,
+			@RequestParam(name = "count", defaultValue = "exact") CountMode count
 	) {
 
 		List<Sort.Order> criteria = SortUtil.getCriteria(sort);
@@ -938,7 +1355,7 @@ public class MovieController {
 				matcher
 		);
 
-		Result<Page<Assessment>> result = assessments.get(page, size, Sort.by(criteria), filter);
+		Result<Page<Assessment>> result = assessments.get(page, size, Sort.by(criteria), filter, count);
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
@@ -946,18 +1363,25 @@ public class MovieController {
 			Page<Assessment> assesments = result.getResult();
 			Pageable metadata = assesments.getPageable();
 
-			Link movie = linkTo(methodOn(MovieController.class).getMovie(movieId)).withRel("movie");
-			Link self = linkTo(methodOn(MovieController.class).getAssessments(movieId, page, size, sort)).withSelfRel();
-			Link first = linkTo(methodOn(MovieController.class).getAssessments(movieId, metadata.first().getPageNumber(), size, sort)).withRel(IanaLinkRelations.FIRST);
-			Link last = linkTo(methodOn(MovieController.class).getAssessments(movieId, assesments.getTotalPages() - 1, size, sort)).withRel(IanaLinkRelations.LAST);
-			Link next = linkTo(methodOn(MovieController.class).getAssessments(movieId, metadata.next().getPageNumber(), size, sort)).withRel(IanaLinkRelations.NEXT);
-			Link previous = linkTo(methodOn(MovieController.class).getAssessments(movieId, metadata.previousOrFirst().getPageNumber(), size, sort)).withRel(IanaLinkRelations.PREVIOUS);
+			Link movie = linkTo(methodOn(MovieController.class).getMovie(movieId, new ArrayList<>(), null, null, null, null)).withRel("movie");
+			Link self = linkTo(methodOn(MovieController.class).getAssessments(movieId, page, size, sort, count)).withSelfRel();
+			Link first = linkTo(methodOn(MovieController.class).getAssessments(movieId, metadata.first().getPageNumber(), size, sort, count)).withRel(IanaLinkRelations.FIRST);
+			Link last = linkTo(methodOn(MovieController.class).getAssessments(movieId, assesments.getTotalPages() - 1, size, sort, count)).withRel(IanaLinkRelations.LAST);
+			Link next = linkTo(methodOn(MovieController.class).getAssessments(movieId, metadata.next().getPageNumber(), size, sort, count)).withRel(IanaLinkRelations.NEXT);
+			Link previous = linkTo(methodOn(MovieController.class).getAssessments(movieId, metadata.previousOrFirst().getPageNumber(), size, sort, count)).withRel(IanaLinkRelations.PREVIOUS);
 
 			links.add(movie);
 			links.add(self);
 			links.add(first);
-			links.add(last);
-			links.add(next);
+
+			if (count != CountMode.NONE) {
+				links.add(last);
+			}
+
+			if (assesments.hasNext()) {
+				links.add(next);
+			}
+
 			links.add(previous);
 
 		}
@@ -1022,8 +1446,8 @@ public class MovieController {
 
 		if (result.getResult() != null) {
 
-			Link movie = linkTo(methodOn(MovieController.class).getMovie(result.getResult().getMovie().getId())).withRel("movie");
-			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>())).withRel("movieAssessments");
+			Link movie = linkTo(methodOn(MovieController.class).getMovie(result.getResult().getMovie().getId(), new ArrayList<>(), null, null, null, null)).withRel("movie");
+			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>(), null)).withRel("movieAssessments");
 
 			links.add(movie);
 			links.add(movieAssessments);
@@ -1040,6 +1464,7 @@ public class MovieController {
 	 * @param movieId      identificador de la película
 	 * @param assessmentId identificador del comentario
 	 * @param updates      lista de operaciones de modificación
+	 * @param ifMatch      versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@PatchMapping(path = "{movieId}/assessments/{assessmentId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -1077,18 +1502,23 @@ public class MovieController {
 					responseCode = "404",
 					description = "Movie not found",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The assessment has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> updateAssessment(@PathVariable("movieId") @NotBlank String movieId, @PathVariable("assessmentId") @NotBlank String assessmentId, @RequestBody List<Map<String, Object>> updates) {
+	ResponseEntity<Object> updateAssessment(@PathVariable("movieId") @NotBlank String movieId, @PathVariable("assessmentId") @NotBlank String assessmentId, @RequestBody List<Map<String, Object>> updates, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<Assessment> result = assessments.updateForMovie(movieId, assessmentId, updates);
+		Result<Assessment> result = assessments.updateForMovie(movieId, assessmentId, updates, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(MovieController.class).updateAssessment(movieId, assessmentId, updates)).withSelfRel();
-			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>())).withRel("movieAssessments");
-			Link userAssessments = linkTo(methodOn(UserController.class).getAssessments(result.getResult().getUser().getEmail(), 0, 20, new ArrayList<>())).withRel("userAssessments");
+			Link self = linkTo(methodOn(MovieController.class).updateAssessment(movieId, assessmentId, updates, null)).withSelfRel();
+			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>(), null)).withRel("movieAssessments");
+			Link userAssessments = linkTo(methodOn(UserController.class).getAssessments(result.getResult().getUser().getEmail(), 0, 20, new ArrayList<>(), null)).withRel("userAssessments");
 
 			links.add(self);
 			links.add(movieAssessments);
@@ -1148,8 +1578,8 @@ public class MovieController {
 
 		if (result.getResult() != null) {
 
-			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>())).withRel("movieAssessments");
-			Link userAssessments = linkTo(methodOn(UserController.class).getAssessments(result.getResult().getUser().getEmail(), 0, 20, new ArrayList<>())).withRel("userAssessments");
+			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>(), null)).withRel("movieAssessments");
+			Link userAssessments = linkTo(methodOn(UserController.class).getAssessments(result.getResult().getUser().getEmail(), 0, 20, new ArrayList<>(), null)).withRel("userAssessments");
 
 			links.add(movieAssessments);
 			links.add(userAssessments);
@@ -1160,4 +1590,135 @@ public class MovieController {
 
 	}
 
+	/**
+	 * Metodo que construye el filtro de películas por fecha de estreno, título y estado
+	 *
+	 * @param releaseDate criterio de búsqueda por fecha de estreno
+	 * @param title       criterio de búsqueda por título
+	 * @param status      criterio de búsqueda por estado
+	 * @return filtro de películas
+	 * @throws IllegalArgumentException si algún criterio no es válido
+	 */
+	private Example<Movie> getFilter(String releaseDate, String title, String status) {
+
+		ExampleMatcher matcher = ExampleMatcher
+				.matchingAll()
+				.withIgnoreCase()
+				.withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING);
+
+		Movie filterMovie = new Movie();
+
+		if (!releaseDate.isBlank()) {
+
+			try {
+
+				LocalDate date = LocalDate.parse(releaseDate);
+
+				filterMovie.setReleaseDate(new Date(date.getDayOfMonth(), date.getMonthValue(), date.getYear()));
+
+			} catch (Exception e) {
+
+				throw new IllegalArgumentException(e.getMessage());
+
+			}
+
+		}
+
+		if (!title.isBlank()) {
+			filterMovie.setTitle(title);
+		}
+
+		if (!status.isBlank()) {
+			filterMovie.setStatus(Status.valueOf(status.toUpperCase()));
+		}
+
+		return Example.of(
+				filterMovie,
+				matcher
+		);
+
+	}
+
+	/**
+	 * Metodo que construye el criterio de búsqueda por reparto a partir de cadenas id-nombre-personaje
+	 *
+	 * @param cast criterio de búsqueda por reparto
+	 * @return lista de actores de ejemplo
+	 * @throws IllegalArgumentException si algún criterio no es válido
+	 */
+	private List<Cast> getCastList(List<String> cast) {
+
+		List<Cast> castList = new ArrayList<>();
+
+		for (String castString : cast) {
+
+			Cast newCast = new Cast();
+
+			String[] parts = castString.split("-", 3);
+
+			if (parts.length != 3) {
+				throw new IllegalArgumentException("Invalid cast");
+			}
+
+			if (!parts[0].equals("*")) {
+				newCast.setId(parts[0]);
+			}
+
+			if (!parts[1].equals("*")) {
+				newCast.setName(parts[1]);
+			}
+
+			if (!parts[2].equals("*")) {
+				newCast.setCharacter(parts[2]);
+			}
+
+			castList.add(newCast);
+
+		}
+
+		return castList;
+
+	}
+
+	/**
+	 * Metodo que construye el criterio de búsqueda por equipo de trabajo a partir de cadenas id-nombre-trabajo
+	 *
+	 * @param crew criterio de búsqueda por equipo de trabajo
+	 * @return lista de miembros del equipo de ejemplo
+	 * @throws IllegalArgumentException si algún criterio no es válido
+	 */
+	private List<Crew> getCrewList(List<String> crew) {
+
+		List<Crew> crewList = new ArrayList<>();
+
+		for (String crewString : crew) {
+
+			Crew newCrew = new Crew();
+
+			String[] parts = crewString.split("-", 3);
+
+			if (parts.length != 3) {
+				throw new IllegalArgumentException("Invalid crew");
+			}
+
+			if (!parts[0].equals("*")) {
+				newCrew.setId(parts[0]);
+			}
+
+			if (!parts[1].equals("*")) {
+				newCrew.setName(parts[1]);
+			}
+
+			if (!parts[2].equals("*")) {
+				newCrew.setJob(parts[2]);
+			}
+
+			crewList.add(newCrew);
+
+		}
+
+		return crewList;
+
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,472 @@
+package usc.etse.grei.ense.p3.project.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.LinkRelationProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import usc.etse.grei.ense.p3.project.handler.ResponseHandler;
+import usc.etse.grei.ense.p3.project.model.*;
+import usc.etse.grei.ense.p3.project.service.CreditService;
+import usc.etse.grei.ense.p3.project.service.PersonService;
+import usc.etse.grei.ense.p3.project.service.SuggestService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Controlador de las operaciones sobre personas
+ */
+@RestController
+@RequestMapping("persons")
+@Tag(name = "Person API", description = "Person related operations")
+@SecurityRequirement(name = "JWT")
+public class PersonController {
+
+	private final PersonService persons;
+	private final SuggestService suggest;
+	private final CreditService credits;
+	private final LinkRelationProvider relationProvider;
+
+	@Autowired
+	public PersonController(PersonService persons, SuggestService suggest, CreditService credits, LinkRelationProvider relationProvider) {
+		this.persons = persons;
+		this.suggest = suggest;
+		this.credits = credits;
+		this.relationProvider = relationProvider;
+	}
+
+	/**
+	 * Metodo que gestiona la operación GET /persons
+	 *
+	 * @param page  número de página
+	 * @param size  número de personas por página
+	 * @param count modo de recuento del total (exact, estimated o none)
+	 * @return respuesta HTTP
+	 */
+	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('USER')")
+	@Operation(
+			operationId = "getPersons",
+			summary = "Get persons",
+			description = "Get a list of persons sorted by name"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The persons details",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Person.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> getPersons(
+			@RequestParam(name = "page", defaultValue = "0") int page,
+			@RequestParam(name = "size", defaultValue = "20") int size,
+			@RequestParam(name = "count", defaultValue = "exact") CountMode count
+	) {
+
+		Result<Page<Person>> result = persons.get(page, size, count);
+		ArrayList<Link> links = new ArrayList<>();
+
+		Page<Person> pagePersons = result.getResult();
+		Pageable metadata = pagePersons.getPageable();
+
+		Link resource = linkTo(methodOn(PersonController.class).getPerson(null)).withRel(relationProvider.getItemResourceRelFor(Person.class));
+		Link self = linkTo(methodOn(PersonController.class).getPersons(metadata.getPageNumber(), size, count)).withSelfRel();
+		Link first = linkTo(methodOn(PersonController.class).getPersons(metadata.first().getPageNumber(), size, count)).withRel(IanaLinkRelations.FIRST);
+		Link last = linkTo(methodOn(PersonController.class).getPersons(pagePersons.getTotalPages() - 1, size, count)).withRel(IanaLinkRelations.LAST);
+		Link next = linkTo(methodOn(PersonController.class).getPersons(metadata.next().getPageNumber(), size, count)).withRel(IanaLinkRelations.NEXT);
+		Link previous = linkTo(methodOn(PersonController.class).getPersons(metadata.previousOrFirst().getPageNumber(), size, count)).withRel(IanaLinkRelations.PREVIOUS);
+
+		links.add(resource);
+		links.add(self);
+		links.add(first);
+
+		if (count != CountMode.NONE) {
+			links.add(last);
+		}
+
+		if (pagePersons.hasNext()) {
+			links.add(next);
+		}
+
+		links.add(previous);
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), pagePersons.stream().toList(), links, result.getStatus());
+
+	}
+
+	/**
+	 * Metodo que gestiona la operación GET /persons/{id}
+	 *
+	 * @param id identificador de la persona
+	 * @return respuesta HTTP
+	 */
+	@GetMapping(path = "{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('USER')")
+	@Operation(
+			operationId = "getPerson",
+			summary = "Get person",
+			description = "Get a person by id"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The person details",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Person.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "404",
+					description = "Person not found",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> getPerson(@PathVariable("id") @NotBlank String id) {
+
+		Result<Person> result = persons.get(id);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
+
+			Link self = linkTo(methodOn(PersonController.class).getPerson(id)).withSelfRel();
+			Link movies = linkTo(methodOn(PersonController.class).getPersonMovies(id, 0, 20, CountMode.EXACT)).withRel("movies");
+			Link all = linkTo(PersonController.class).withRel(relationProvider.getCollectionResourceRelFor(Person.class));
+
+			links.add(self);
+			links.add(movies);
+			links.add(all);
+
+		}
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
+	/**
+	 * Metodo que gestiona la operación POST /persons
+	 *
+	 * @param person persona añadida
+	 * @return respuesta HTTP
+	 */
+	@PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(
+			operationId = "createPerson",
+			summary = "Create person",
+			description = "Create a new person"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "201",
+					description = "The person has been created",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Person.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> createPerson(@Validated(OnCreate.class) @RequestBody Person person) {
+
+		Result<Person> result = persons.create(person);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
+
+			Link self = linkTo(methodOn(PersonController.class).getPerson(result.getResult().getId())).withSelfRel();
+			Link all = linkTo(PersonController.class).withRel(relationProvider.getCollectionResourceRelFor(Person.class));
+
+			links.add(self);
+			links.add(all);
+
+		}
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
+	/**
+	 * Metodo que gestiona la operación PATCH /persons/{id}
+	 *
+	 * @param id      identificador de la persona
+	 * @param updates lista de operaciones de modificación
+	 * @return respuesta HTTP
+	 */
+	@PatchMapping(path = "{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(
+			operationId = "updatePerson",
+			summary = "Update person",
+			description = "Update a person by id. A new name is propagated to the cast and crew of every movie of the person"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The person has been updated",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Person.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "202",
+					description = "The person has been updated and the name propagation is pending",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Person.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "404",
+					description = "Person not found",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> updatePerson(@PathVariable("id") @NotBlank String id, @RequestBody List<Map<String, Object>> updates) {
+
+		Result<Person> result = persons.update(id, updates);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
+
+			Link self = linkTo(methodOn(PersonController.class).getPerson(id)).withSelfRel();
+			Link all = linkTo(PersonController.class).withRel(relationProvider.getCollectionResourceRelFor(Person.class));
+
+			links.add(self);
+			links.add(all);
+
+			if (result.getJob() != null) {
+				links.add(linkTo(methodOn(JobController.class).getJob(result.getJob())).withRel("job"));
+			}
+
+		}
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
+	/**
+	 * Metodo que gestiona la operación GET /persons/suggest
+	 *
+	 * @param prefix prefijo del nombre
+	 * @param size   número máximo de sugerencias
+	 * @return respuesta HTTP
+	 */
+	@GetMapping(path = "suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('USER')")
+	@Operation(
+			operationId = "suggestPersons",
+			summary = "Suggest persons",
+			description = "Get the most popular persons whose name starts with a prefix"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The person suggestions",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Suggestion.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> suggestPersons(
+			@RequestParam(name = "prefix", required = false, defaultValue = "") String prefix,
+			@RequestParam(name = "size", required = false, defaultValue = "10") int size
+	) {
+
+		Result<List<Suggestion>> result = suggest.suggestPersons(prefix, size);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() != null) {
+
+			Link self = linkTo(methodOn(PersonController.class).suggestPersons(prefix, size)).withSelfRel();
+
+			links.add(self);
+
+		}
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+
+	}
+
+	/**
+	 * Metodo que gestiona la operación GET /persons/{id}/movies
+	 *
+	 * @param id    identificador de la persona
+	 * @param page  número de página
+	 * @param size  número de películas por página
+	 * @param count modo de recuento del total (exact, estimated o none)
+	 * @return respuesta HTTP
+	 */
+	@GetMapping(path = "{id}/movies", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('USER')")
+	@Operation(
+			operationId = "getPersonMovies",
+			summary = "Get person movies",
+			description = "Get the movies in which a person is part of the cast or crew, sorted by title"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The movies of the person",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = Credit.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "404",
+					description = "Person not found",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> getPersonMovies(
+			@PathVariable("id") @NotBlank String id,
+			@RequestParam(name = "page", defaultValue = "0") int page,
+			@RequestParam(name = "size", defaultValue = "20") int size,
+			@RequestParam(name = "count", defaultValue = "exact") CountMode count
+	) {
+
+		Result<Page<Credit>> result = credits.get(id, page, size, count);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() == null) {
+			return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), null, links, result.getStatus());
+		}
+
+		Page<Credit> movies = result.getResult();
+		Pageable metadata = movies.getPageable();
+
+		Link person = linkTo(methodOn(PersonController.class).getPerson(id)).withRel("person");
+		Link self = linkTo(methodOn(PersonController.class).getPersonMovies(id, metadata.getPageNumber(), size, count)).withSelfRel();
+		Link first = linkTo(methodOn(PersonController.class).getPersonMovies(id, metadata.first().getPageNumber(), size, count)).withRel(IanaLinkRelations.FIRST);
+		Link last = linkTo(methodOn(PersonController.class).getPersonMovies(id, movies.getTotalPages() - 1, size, count)).withRel(IanaLinkRelations.LAST);
+		Link next = linkTo(methodOn(PersonController.class).getPersonMovies(id, metadata.next().getPageNumber(), size, count)).withRel(IanaLinkRelations.NEXT);
+		Link previous = linkTo(methodOn(PersonController.class).getPersonMovies(id, metadata.previousOrFirst().getPageNumber(), size, count)).withRel(IanaLinkRelations.PREVIOUS);
+
+		links.add(person);
+		links.add(self);
+		links.add(first);
+
+		if (count != CountMode.NONE) {
+			links.add(last);
+		}
+
+		if (movies.hasNext()) {
+			links.add(next);
+		}
+
+		links.add(previous);
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), movies.stream().toList(), links, result.getStatus());
+
+	}
+
+}
\ No newline at end of file
@@ -14,6 +14,7 @@ import org.springframework.data.domain.*;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.LinkRelationProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -60,6 +61,7 @@ public class UserController {
 	 * @param sort  criterio de ordenación
 	 * @param email criterio de búsqueda por correo electrónico
 	 * @param name  criterio de búsqueda por nombre
+	 * @param count modo de recuento del total (exact, estimated o none)
 	 * @return respuesta HTTP
 	 */
 	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
@@ -99,7 +101,8 @@ public class UserController {
 			@RequestParam(name = "size", required = false, defaultValue = "20") int size,
 			@RequestParam(name = "sort", required = false, defaultValue = "") List<String> sort,
 			@RequestParam(name = "email", required = false, defaultValue = "") String email,
-			@RequestParam(name = "name", required = false, defaultValue = "") String name
+			@RequestParam(name = "name", required = false, defaultValue = "") String name,
+			@RequestParam(name = "count", required = false, defaultValue = "exact") CountMode count
 	) {
 
 		List<Sort.Order> criteria = SortUtil.getCriteria(sort);
@@ -114,7 +117,7 @@ public class UserController {
 				matcher
 		);
 
-		Result<Page<User>> result = users.get(page, size, Sort.by(criteria), filter);
+		Result<Page<User>> result = users.get(page, size, Sort.by(criteria), filter, count);
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
@@ -122,17 +125,24 @@ public class UserController {
 			Page<User> users = result.getResult();
 			Pageable metadata = users.getPageable();
 
-			Link self = linkTo(methodOn(UserController.class).getUsers(page, size, sort, email, name)).withSelfRel();
-			Link first = linkTo(methodOn(UserController.class).getUsers(metadata.first().getPageNumber(), size, sort, email, name)).withRel(IanaLinkRelations.FIRST);
-			Link last = linkTo(methodOn(UserController.class).getUsers(users.getTotalPages() - 1, size, sort, email, name)).withRel(IanaLinkRelations.LAST);
-			Link next = linkTo(methodOn(UserController.class).getUsers(metadata.next().getPageNumber(), size, sort, email, name)).withRel(IanaLinkRelations.NEXT);
-			Link previous = linkTo(methodOn(UserController.class).getUsers(metadata.previousOrFirst().getPageNumber(), size, sort, email, name)).withRel(IanaLinkRelations.PREVIOUS);
-			Link one = linkTo(methodOn(UserController.class).getUser(null)).withRel(relationProvider.getItemResourceRelFor(User.class));
+			Link self = linkTo(methodOn(UserController.class).getUsers(page, size, sort, email, name, count)).withSelfRel();
+			Link first = linkTo(methodOn(UserController.class).getUsers(metadata.first().getPageNumber(), size, sort, email, name, count)).withRel(IanaLinkRelations.FIRST);
+			Link last = linkTo(methodOn(UserController.class).getUsers(users.getTotalPages() - 1, size, sort, email, name, count)).withRel(IanaLinkRelations.LAST);
+			Link next = linkTo(methodOn(UserController.class).getUsers(metadata.next().getPageNumber(), size, sort, email, name, count)).withRel(IanaLinkRelations.NEXT);
+			Link previous = linkTo(methodOn(UserController.class).getUsers(metadata.previousOrFirst().getPageNumber(), size, sort, email, name, count)).withRel(IanaLinkRelations.PREVIOUS);
+			Link one = linkTo(methodOn(UserController.class).getUser(null, null)).withRel(relationProvider.getItemResourceRelFor(User.class));
 
 			links.add(self);
 			links.add(first);
-			links.add(last);
-			links.add(next);
+
+			if (count != CountMode.NONE) {
+				links.add(last);
+			}
+
+			if (users.hasNext()) {
+				links.add(next);
+			}
+
 			links.add(previous);
 			links.add(one);
 
@@ -145,7 +155,8 @@ public class UserController {
 	/**
 	 * Metodo que gestiona la operación GET /users/{email}
 	 *
-	 * @param email correo electrónico del usuario
+	 * @param email       correo electrónico del usuario
+	 * @param ifNoneMatch versiones de las que ya dispone el cliente
 	 * @return respuesta HTTP
 	 */
 	@GetMapping(path = "{email}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -164,6 +175,11 @@ public class UserController {
 							schema = @Schema(implementation = User.class)
 					)
 			),
+			@ApiResponse(
+					responseCode = "304",
+					description = "The user has not been modified",
+					content = @Content
+			),
 			@ApiResponse(
 					responseCode = "400",
 					description = "Bad request",
@@ -185,14 +201,14 @@ public class UserController {
 					content = @Content
 			)
 	})
-	ResponseEntity<Object> getUser(@PathVariable("email") @NotBlank @Email String email) {
+	ResponseEntity<Object> getUser(@PathVariable("email") @NotBlank @Email String email, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
 		Result<User> result = users.get(email);
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(UserController.class).getUser(email)).withSelfRel();
+			Link self = linkTo(methodOn(UserController.class).getUser(email, null)).withSelfRel();
 			Link all = linkTo(UserController.class).withRel(relationProvider.getCollectionResourceRelFor(User.class));
 
 			links.add(self);
@@ -200,7 +216,7 @@ public class UserController {
 
 		}
 
-		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus(), ifNoneMatch);
 
 	}
 
@@ -243,7 +259,7 @@ public class UserController {
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(UserController.class).getUser(result.getResult().getEmail())).withSelfRel();
+			Link self = linkTo(methodOn(UserController.class).getUser(result.getResult().getEmail(), null)).withSelfRel();
 			Link all = linkTo(UserController.class).withRel(relationProvider.getCollectionResourceRelFor(User.class));
 
 			links.add(self);
@@ -260,6 +276,7 @@ public class UserController {
 	 *
 	 * @param email   correo electrónico del usuario
 	 * @param updates lista de operaciones de modificación
+	 * @param ifMatch versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@PatchMapping(path = "{email}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -278,6 +295,14 @@ public class UserController {
 							schema = @Schema(implementation = User.class)
 					)
 			),
+			@ApiResponse(
+					responseCode = "202",
+					description = "The user has been updated and the name propagation is pending",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = User.class)
+					)
+			),
 			@ApiResponse(
 					responseCode = "400",
 					description = "Bad request",
@@ -297,21 +322,30 @@ public class UserController {
 					responseCode = "404",
 					description = "User not found",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The user has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> updateUser(@PathVariable("email") @NotBlank @Email String email, @RequestBody List<Map<String, Object>> updates) {
+	ResponseEntity<Object> updateUser(@PathVariable("email") @NotBlank @Email String email, @RequestBody List<Map<String, Object>> updates, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<User> result = users.update(email, updates);
+		Result<User> result = users.update(email, updates, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(UserController.class).getUser(result.getResult().getEmail())).withSelfRel();
+			Link self = linkTo(methodOn(UserController.class).getUser(result.getResult().getEmail(), null)).withSelfRel();
 			Link all = linkTo(UserController.class).withRel(relationProvider.getCollectionResourceRelFor(User.class));
 
 			links.add(self);
 			links.add(all);
 
+			if (result.getJob() != null) {
+				links.add(linkTo(methodOn(JobController.class).getJob(result.getJob())).withRel("job"));
+			}
+
 		}
 
 		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
@@ -337,6 +371,11 @@ public class UserController {
 					description = "The user has been deleted",
 					content = @Content
 			),
+			@ApiResponse(
+					responseCode = "202",
+					description = "The user has been deleted and the deletion of its assessments is pending",
+					content = @Content
+			),
 			@ApiResponse(
 					responseCode = "400",
 					description = "Bad request",
@@ -369,12 +408,104 @@ public class UserController {
 
 			links.add(all);
 
+			if (result.getJob() != null) {
+				links.add(linkTo(methodOn(JobController.class).getJob(result.getJob())).withRel("job"));
+			}
+
 		}
 
 		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), links, result.getStatus());
 
 	}
 
+	/**
+	 * Metodo que gestiona la operación GET /users/{email}/friends
+	 *
+	 * @param email correo electrónico del usuario
+	 * @param page  número de página
+	 * @param size  número de amigos por página
+	 * @param count modo de recuento del total (exact, estimated o none)
+	 * @return respuesta HTTP
+	 */
+	@GetMapping(path = "{email}/friends", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasRole('ADMIN') or #email == principal or @userService.areFriends(#email, principal)")
+	@Operation(
+			operationId = "getFriends",
+			summary = "Get friends",
+			description = "Get a list of friends for a user"
+	)
+	@ApiResponses({
+			@ApiResponse(
+					responseCode = "200",
+					description = "The friends details",
+					content = @Content(
+							mediaType = "application/json",
+							schema = @Schema(implementation = FriendRelation.class)
+					)
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "401",
+					description = "Bad token",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "403",
+					description = "Not enough privileges",
+					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "404",
+					description = "User not found",
+					content = @Content
+			)
+	})
+	ResponseEntity<Object> getFriends(
+			@PathVariable("email") @NotBlank @Email String email,
+			@RequestParam(name = "page", defaultValue = "0") int page,
+			@RequestParam(name = "size", defaultValue = "20") int size,
+			@RequestParam(name = "count", defaultValue = "exact") CountMode count
+	) {
+
+		Result<Page<Friendship>> result = users.getFriends(email, page, size, count);
+		ArrayList<Link> links = new ArrayList<>();
+
+		if (result.getResult() == null) {
+			return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), null, links, result.getStatus());
+		}
+
+		Page<Friendship> friends = result.getResult();
+		Pageable metadata = friends.getPageable();
+
+		Link user = linkTo(methodOn(UserController.class).getUser(email, null)).withRel("user");
+		Link self = linkTo(methodOn(UserController.class).getFriends(email, metadata.getPageNumber(), size, count)).withSelfRel();
+		Link first = linkTo(methodOn(UserController.class).getFriends(email, metadata.first().getPageNumber(), size, count)).withRel(IanaLinkRelations.FIRST);
+		Link last = linkTo(methodOn(UserController.class).getFriends(email, friends.getTotalPages() - 1, size, count)).withRel(IanaLinkRelations.LAST);
+		Link next = linkTo(methodOn(UserController.class).getFriends(email, metadata.next().getPageNumber(), size, count)).withRel(IanaLinkRelations.NEXT);
+		Link previous = linkTo(methodOn(UserController.class).getFriends(email, metadata.previousOrFirst().getPageNumber(), size, count)).withRel(IanaLinkRelations.PREVIOUS);
+
+		links.add(user);
+		links.add(self);
+		links.add(first);
+
+		if (count != CountMode.NONE) {
+			links.add(last);
+		}
+
+		if (friends.hasNext()) {
+			links.add(next);
+		}
+
+		links.add(previous);
+
+		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), friends.stream().toList(), links, result.getStatus());
+
+	}
+
 	/**
 	 * Metodo que gestiona la operación POST /users/{email}/friends
 	 *
@@ -395,7 +526,7 @@ public class UserController {
 					description = "The friend has been created",
 					content = @Content(
 							mediaType = "application/json",
-							schema = @Schema(implementation = User.class)
+							schema = @Schema(implementation = FriendRelation.class)
 					)
 			),
 			@ApiResponse(
@@ -421,7 +552,7 @@ public class UserController {
 	})
 	ResponseEntity<Object> createFriend(@PathVariable("email") @NotBlank @Email String email, @Validated(OnCreate.class) @RequestBody FriendRelation friend) {
 
-		Result<User> result = users.createFriend(email, friend, true);
+		Result<Friendship> result = users.createFriend(email, friend);
 		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), new ArrayList<>(), result.getStatus());
 
 	}
@@ -447,7 +578,7 @@ public class UserController {
 					description = "The friend has been updated",
 					content = @Content(
 							mediaType = "application/json",
-							schema = @Schema(implementation = User.class)
+							schema = @Schema(implementation = FriendRelation.class)
 					)
 			),
 			@ApiResponse(
@@ -473,7 +604,7 @@ public class UserController {
 	})
 	ResponseEntity<Object> updateFriend(@PathVariable("email") @NotBlank @Email String email, @PathVariable("friendEmail") @NotBlank @Email String friendEmail, @RequestBody List<Map<String, Object>> updates) {
 
-		Result<User> result = users.updateFriend(email, friendEmail, updates, true);
+		Result<Friendship> result = users.updateFriend(email, friendEmail, updates);
 		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), new ArrayList<>(), result.getStatus());
 
 	}
@@ -521,7 +652,7 @@ public class UserController {
 	})
 	ResponseEntity<Object> deleteFriend(@PathVariable("email") @NotBlank @Email String email, @PathVariable("friendEmail") @NotBlank @Email String friendEmail) {
 
-		Result<User> result = users.deleteFriend(email, friendEmail, true);
+		Result<Friendship> result = users.deleteFriend(email, friendEmail);
 		return ResponseHandler.generateResponse(result.isError(), result.getMessaje(), result.getInternalCode(), result.getResult(), new ArrayList<>(), result.getStatus());
 
 	}
@@ -533,6 +664,7 @@ public class UserController {
 	 * @param page   número de página
 	 * @param size   número de comentarios por página
 	 * @param sort   criterio de ordenación
+	 * @param count  modo de recuento del total (exact, estimated o none)
 	 * @return respuesta HTTP
 	 */
 	@GetMapping(path = "{userId}/assessments", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -576,7 +708,8 @@ public class UserController {
 			@PathVariable("userId") @NotBlank @Email String userId,
 			@RequestParam(name = "page", defaultValue = "0") int page,
 			@RequestParam(name = "size", defaultValue = "20") int size,
-			@RequestParam(name = "sort", defaultValue = "") List<String> sort
+			@RequestParam(name = "sort", defaultValue = "") List<String> sort,
+			@RequestParam(name = "count", defaultValue = "exact") CountMode count
 	) {
 
 		List<Sort.Order> criteria = SortUtil.getCriteria(sort);
@@ -591,7 +724,7 @@ public class UserController {
 				matcher
 		);
 
-		Result<Page<Assessment>> result = assessments.get(page, size, Sort.by(criteria), filter);
+		Result<Page<Assessment>> result = assessments.get(page, size, Sort.by(criteria), filter, count);
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
@@ -599,18 +732,25 @@ public class UserController {
 			Page<Assessment> assesments = result.getResult();
 			Pageable metadata = assesments.getPageable();
 
-			Link user = linkTo(methodOn(UserController.class).getUser(userId)).withRel("user");
-			Link self = linkTo(methodOn(UserController.class).getAssessments(userId, metadata.getPageNumber(), size, sort)).withSelfRel();
-			Link first = linkTo(methodOn(UserController.class).getAssessments(userId, metadata.first().getPageNumber(), size, sort)).withRel(IanaLinkRelations.FIRST);
-			Link last = linkTo(methodOn(UserController.class).getAssessments(userId, assesments.getTotalPages() - 1, size, sort)).withRel(IanaLinkRelations.LAST);
-			Link next = linkTo(methodOn(UserController.class).getAssessments(userId, metadata.next().getPageNumber(), size, sort)).withRel(IanaLinkRelations.NEXT);
-			Link previous = linkTo(methodOn(UserController.class).getAssessments(userId, metadata.previousOrFirst().getPageNumber(), size, sort)).withRel(IanaLinkRelations.PREVIOUS);
+			Link user = linkTo(methodOn(UserController.class).getUser(userId, null)).withRel("user");
+			Link self = linkTo(methodOn(UserController.class).getAssessments(userId, metadata.getPageNumber(), size, sort, count)).withSelfRel();
+			Link first = linkTo(methodOn(UserController.class).getAssessments(userId, metadata.first().getPageNumber(), size, sort, count)).withRel(IanaLinkRelations.FIRST);
+			Link last = linkTo(methodOn(UserController.class).getAssessments(userId, assesments.getTotalPages() - 1, size, sort, count)).withRel(IanaLinkRelations.LAST);
+			Link next = linkTo(methodOn(UserController.class).getAssessments(userId, metadata.next().getPageNumber(), size, sort, count)).withRel(IanaLinkRelations.NEXT);
+			Link previous = linkTo(methodOn(UserController.class).getAssessments(userId, metadata.previousOrFirst().getPageNumber(), size, sort, count)).withRel(IanaLinkRelations.PREVIOUS);
 
 			links.add(user);
 			links.add(self);
 			links.add(first);
-			links.add(last);
-			links.add(next);
+
+			if (count != CountMode.NONE) {
+				links.add(last);
+			}
+
+			if (assesments.hasNext()) {
+				links.add(next);
+			}
+
 			links.add(previous);
 
 		}
@@ -675,8 +815,8 @@ public class UserController {
 
 		if (result.getResult() != null) {
 
-			Link movie = linkTo(methodOn(MovieController.class).getMovie(result.getResult().getMovie().getId())).withRel("movie");
-			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>())).withRel("movieAssessments");
+			Link movie = linkTo(methodOn(MovieController.class).getMovie(result.getResult().getMovie().getId(), new ArrayList<>(), null, null, null, null)).withRel("movie");
+			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>(), null)).withRel("movieAssessments");
 
 			links.add(movie);
 			links.add(movieAssessments);
@@ -693,6 +833,7 @@ public class UserController {
 	 * @param userId       correo electrónico del usuario
 	 * @param assessmentId identificador del comentario
 	 * @param updates      lista de operaciones de modificación
+	 * @param ifMatch      versión esperada del recurso
 	 * @return respuesta HTTP
 	 */
 	@PatchMapping(path = "{userId}/assessments/{assessmentId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -730,18 +871,23 @@ public class UserController {
 					responseCode = "404",
 					description = "User not found",
 					content = @Content
+			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "The assessment has been modified since the given version",
+					content = @Content
 			)
 	})
-	ResponseEntity<Object> updateAssessment(@PathVariable("userId") @NotBlank @Email String userId, @PathVariable("assessmentId") @NotBlank String assessmentId, @RequestBody List<Map<String, Object>> updates) {
+	ResponseEntity<Object> updateAssessment(@PathVariable("userId") @NotBlank @Email String userId, @PathVariable("assessmentId") @NotBlank String assessmentId, @RequestBody List<Map<String, Object>> updates, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		Result<Assessment> result = assessments.updateForUser(userId, assessmentId, updates);
+		Result<Assessment> result = assessments.updateForUser(userId, assessmentId, updates, ResponseHandler.version(ifMatch));
 		ArrayList<Link> links = new ArrayList<>();
 
 		if (result.getResult() != null) {
 
-			Link self = linkTo(methodOn(UserController.class).updateAssessment(userId, assessmentId, updates)).withSelfRel();
-			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>())).withRel("movieAssessments");
-			Link userAssessments = linkTo(methodOn(UserController.class).getAssessments(result.getResult().getUser().getEmail(), 0, 20, new ArrayList<>())).withRel("userAssessments");
+			Link self = linkTo(methodOn(UserController.class).updateAssessment(userId, assessmentId, updates, null)).withSelfRel();
+			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>(), null)).withRel("movieAssessments");
+			Link userAssessments = linkTo(methodOn(UserController.class).getAssessments(result.getResult().getUser().getEmail(), 0, 20, new ArrayList<>(), null)).withRel("userAssessments");
 
 			links.add(self);
 			links.add(movieAssessments);
@@ -801,8 +947,8 @@ public class UserController {
 
 		if (result.getResult() != null) {
 
-			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>())).withRel("movieAssessments");
-			Link userAssessments = linkTo(methodOn(UserController.class).getAssessments(result.getResult().getUser().getEmail(), 0, 20, new ArrayList<>())).withRel("userAssessments");
+			Link movieAssessments = linkTo(methodOn(MovieController.class).getAssessments(result.getResult().getMovie().getId(), 0, 20, new ArrayList<>(), null)).withRel("movieAssessments");
+			Link userAssessments = linkTo(methodOn(UserController.class).getAssessments(result.getResult().getUser().getEmail(), 0, 20, new ArrayList<>(), null)).withRel("userAssessments");
 
 			links.add(movieAssessments);
 			links.add(userAssessments);
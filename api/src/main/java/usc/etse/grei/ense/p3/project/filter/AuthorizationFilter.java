@@ -1,7 +1,11 @@
 package usc.etse.grei.ense.p3.project.filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -15,19 +19,47 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filtro de autorización de usuarios
  */
 public class AuthorizationFilter extends BasicAuthenticationFilter {
 
-	private final Key key;
+	private static final long CACHE_SIZE = 10000;
+	private final JwtParser parser;
+	private final Cache<String, VerifiedToken> tokens;
 
 	public AuthorizationFilter(AuthenticationManager manager, Key key) {
 		super(manager);
-		this.key = key;
+		this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+		this.tokens = Caffeine.newBuilder()
+				.maximumSize(CACHE_SIZE)
+				.expireAfter(new Expiry<String, VerifiedToken>() {
+
+					@Override
+					public long expireAfterCreate(String hash, VerifiedToken token, long currentTime) {
+						return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.getExpiration() - System.currentTimeMillis()));
+					}
+
+					@Override
+					public long expireAfterUpdate(String hash, VerifiedToken token, long currentTime, long currentDuration) {
+						return expireAfterCreate(hash, token, currentTime);
+					}
+
+					@Override
+					public long expireAfterRead(String hash, VerifiedToken token, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+
+				})
+				.build();
 	}
 
 	/**
@@ -74,13 +106,83 @@ public class AuthorizationFilter extends BasicAuthenticationFilter {
 	 */
 	private UsernamePasswordAuthenticationToken getAuthentication(String token) throws ExpiredJwtException {
 
-		Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token.replace("Bearer", "").trim()).getBody();
+		String jwt = token.replace("Bearer", "").trim();
+		String hash = hash(jwt);
+
+		VerifiedToken verified = tokens.getIfPresent(hash);
+
+		if (verified != null && verified.getExpiration() > System.currentTimeMillis()) {
+			return new UsernamePasswordAuthenticationToken(verified.getUser(), token, verified.getAuthorities());
+		}
+
+		Claims claims = parser.parseClaimsJws(jwt).getBody();
 
 		String user = claims.getSubject();
 
+		if (user == null) {
+			return null;
+		}
+
 		List<GrantedAuthority> authorities = AuthorityUtils.commaSeparatedStringToAuthorityList(String.join(",", (List) claims.get("roles")));
 
-		return user == null ? null : new UsernamePasswordAuthenticationToken(user, token, authorities);
+		if (claims.getExpiration() != null) {
+			tokens.put(hash, new VerifiedToken(user, List.copyOf(authorities), claims.getExpiration().getTime()));
+		}
+
+		return new UsernamePasswordAuthenticationToken(user, token, authorities);
+
+	}
+
+	/**
+	 * Metodo que calcula el resumen SHA-256 de un token para utilizarlo como clave de la caché
+	 *
+	 * @param jwt token
+	 * @return resumen codificado en Base64
+	 */
+	private static String hash(String jwt) {
+
+		try {
+
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.UTF_8));
+
+			return Base64.getEncoder().encodeToString(digest);
+
+		} catch (NoSuchAlgorithmException e) {
+
+			throw new IllegalStateException(e);
+
+		}
+
+	}
+
+	/**
+	 * Clase que almacena el usuario y los roles inmutables de un token ya verificado junto con su instante de
+	 * expiración. Cada solicitud construye su propia autenticación a partir de estos datos, ya que los objetos de
+	 * autenticación son mutables y no se pueden compartir entre solicitudes
+	 */
+	private static class VerifiedToken {
+
+		private final String user;
+		private final List<GrantedAuthority> authorities;
+		private final long expiration;
+
+		public VerifiedToken(String user, List<GrantedAuthority> authorities, long expiration) {
+			this.user = user;
+			this.authorities = authorities;
+			this.expiration = expiration;
+		}
+
+		public String getUser() {
+			return user;
+		}
+
+		public List<GrantedAuthority> getAuthorities() {
+			return authorities;
+		}
+
+		public long getExpiration() {
+			return expiration;
+		}
 
 	}
 
@@ -0,0 +1,223 @@
+package usc.etse.grei.ense.p3.project.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import usc.etse.grei.ense.p3.project.service.PayloadCache;
+import usc.etse.grei.ense.p3.project.service.PayloadCache.Payload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Clase que añade a las respuestas de lectura las cabeceras de caché HTTP, resuelve las peticiones condicionales de
+ * los recursos sin versión, como los listados, a partir del resumen de su contenido y comprime las respuestas grandes
+ */
+@ControllerAdvice
+public class CacheHandler implements ResponseBodyAdvice<Object> {
+
+	private final ObjectMapper mapper;
+	private final PayloadCache payloads;
+	private final MeterRegistry registry;
+	private final Map<String, String> policies;
+
+	@Autowired
+	public CacheHandler(ObjectMapper mapper, PayloadCache payloads, MeterRegistry registry, @Value("${api.http.cache.catalog:public, max-age=60}") String catalog, @Value("${api.http.cache.users:private, no-cache}") String users) {
+		this.mapper = mapper;
+		this.payloads = payloads;
+		this.registry = registry;
+		this.policies = Map.of("/movies", catalog, "/persons", catalog, "/users", users);
+	}
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+	}
+
+	/**
+	 * Metodo que añade la política de caché a las respuestas de lectura y escribe su contenido serializado,
+	 * reutilizando la serialización de los documentos versionados y comprimiéndolo si el cliente lo admite. Si la
+	 * respuesta no tiene etiqueta de entidad, la calcula a partir de su contenido y responde 304 sin cuerpo si el
+	 * cliente ya dispone de él
+	 *
+	 * @param body          cuerpo de la respuesta
+	 * @param returnType    tipo devuelto por el controlador
+	 * @param contentType   tipo de contenido seleccionado
+	 * @param converterType conversor seleccionado
+	 * @param request       petición HTTP
+	 * @param response      respuesta HTTP
+	 * @return cuerpo que debe escribir el conversor o null si la respuesta ya se ha escrito
+	 */
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType, Class<? extends HttpMessageConverter<?>> converterType, ServerHttpRequest request, ServerHttpResponse response) {
+
+		String policy = policy(request);
+
+		if (policy == null || !(response instanceof ServletServerHttpResponse servletResponse)) {
+			return body;
+		}
+
+		int status = servletResponse.getServletResponse().getStatus();
+
+		if (status != HttpStatus.OK.value() && status != HttpStatus.NOT_MODIFIED.value()) {
+			return body;
+		}
+
+		response.getHeaders().setCacheControl(policy);
+
+		if (status != HttpStatus.OK.value() || body == null) {
+			return body;
+		}
+
+		String etag = response.getHeaders().getETag();
+		Payload payload;
+
+		try {
+
+			if (etag != null) {
+
+				URI uri = request.getURI();
+				String query = uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "";
+
+				payload = payloads.get(uri.getRawPath() + query + etag, () -> serialize(body));
+
+			} else {
+
+				payload = payloads.create(serialize(body));
+				etag = "\"" + DigestUtils.md5DigestAsHex(payload.getBytes()) + "\"";
+
+				response.getHeaders().setETag(etag);
+
+				if (ResponseHandler.matches(request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH), etag)) {
+					registry.counter("http.payload.saved", "reason", "not_modified").increment(payload.getBytes().length);
+					response.setStatusCode(HttpStatus.NOT_MODIFIED);
+					return null;
+				}
+
+			}
+
+		} catch (UncheckedIOException e) {
+
+			return body;
+
+		}
+
+		byte[] bytes = payload.getBytes();
+
+		if (payload.getGzip() != null) {
+
+			response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+			if (acceptsGzip(request)) {
+
+				bytes = payload.getGzip();
+
+				response.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+				response.getHeaders().setETag(etag.substring(0, etag.length() - 1) + ResponseHandler.GZIP_SUFFIX + "\"");
+
+				registry.counter("http.payload.saved", "reason", "compression").increment(payload.getBytes().length - bytes.length);
+
+			}
+
+		}
+
+		response.getHeaders().setContentType(contentType);
+		response.getHeaders().setContentLength(bytes.length);
+
+		try {
+			response.getBody().write(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Metodo que serializa el cuerpo de una respuesta, registrando el tiempo empleado
+	 *
+	 * @param body cuerpo de la respuesta
+	 * @return cuerpo serializado
+	 */
+	private byte[] serialize(Object body) {
+
+		Timer.Sample sample = Timer.start(registry);
+
+		try {
+			return mapper.writeValueAsBytes(body);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			sample.stop(registry.timer("http.payload.serialization"));
+		}
+
+	}
+
+	/**
+	 * Metodo que comprueba si el cliente admite respuestas comprimidas con gzip
+	 *
+	 * @param request petición HTTP
+	 * @return true si la cabecera Accept-Encoding incluye gzip
+	 */
+	private boolean acceptsGzip(ServerHttpRequest request) {
+
+		for (String encoding : request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+			for (String coding : encoding.split(",")) {
+
+				String[] parts = coding.trim().split(";");
+
+				if (parts[0].trim().equalsIgnoreCase("gzip") && (parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?"))) {
+					return true;
+				}
+
+			}
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * Metodo que obtiene la política de caché configurada para el recurso de una petición de lectura
+	 *
+	 * @param request petición HTTP
+	 * @return política de caché o null si la petición no es de lectura o el recurso no tiene política
+	 */
+	private String policy(ServerHttpRequest request) {
+
+		if (request.getMethod() != HttpMethod.GET) {
+			return null;
+		}
+
+		String path = request.getURI().getPath();
+
+		for (Map.Entry<String, String> policy : policies.entrySet()) {
+			if (path.equals(policy.getKey()) || path.startsWith(policy.getKey() + "/")) {
+				return policy.getValue();
+			}
+		}
+
+		return null;
+
+	}
+
+}
\ No newline at end of file
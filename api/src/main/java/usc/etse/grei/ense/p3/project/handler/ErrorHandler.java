@@ -0,0 +1,53 @@
+package usc.etse.grei.ense.p3.project.handler;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.ArrayList;
+
+/**
+ * Clase que traduce a respuestas HTTP las excepciones de persistencia no gestionadas por los servicios y los
+ * parámetros de las peticiones que no se pueden convertir
+ */
+@RestControllerAdvice
+public class ErrorHandler {
+
+	/**
+	 * Metodo que gestiona las modificaciones realizadas sobre una versión desactualizada de un documento
+	 *
+	 * @param e excepcion
+	 * @return respuesta HTTP
+	 */
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<Object> handleOptimisticLocking(OptimisticLockingFailureException e) {
+		return ResponseHandler.generateResponse(true, "Resource modified concurrently", 0, null, new ArrayList<>(), HttpStatus.CONFLICT);
+	}
+
+	/**
+	 * Metodo que gestiona las inserciones y modificaciones rechazadas por un índice único
+	 *
+	 * @param e excepcion
+	 * @return respuesta HTTP
+	 */
+	@ExceptionHandler(DuplicateKeyException.class)
+	public ResponseEntity<Object> handleDuplicateKey(DuplicateKeyException e) {
+		return ResponseHandler.generateResponse(true, "Resource already exists", 0, null, new ArrayList<>(), HttpStatus.CONFLICT);
+	}
+
+	/**
+	 * Metodo que gestiona los parámetros de una petición con un valor no válido, como un modo de recuento desconocido
+	 *
+	 * @param e excepcion
+	 * @return respuesta HTTP
+	 */
+	@ExceptionHandler(MethodArgumentTypeMismatchException.class)
+	public ResponseEntity<Object> handleTypeMismatch(MethodArgumentTypeMismatchException e) {
+		return ResponseHandler.generateResponse(true, "Invalid " + e.getName(), 0, null, new ArrayList<>(), HttpStatus.BAD_REQUEST);
+	}
+
+}
\ No newline at end of file
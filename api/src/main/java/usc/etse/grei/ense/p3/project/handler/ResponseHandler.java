@@ -4,6 +4,7 @@ import org.springframework.hateoas.Link;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import usc.etse.grei.ense.p3.project.model.Versioned;
 
 import java.util.HashMap;
 import java.util.List;
@@ -14,6 +15,8 @@ import java.util.Map;
  */
 public class ResponseHandler {
 
+	static final String GZIP_SUFFIX = "-gzip";
+
 	/**
 	 * Metodo que centraliza la creación de respuestas HTTP
 	 *
@@ -26,6 +29,41 @@ public class ResponseHandler {
 	 * @return respuesta HTTP
 	 */
 	public static ResponseEntity<Object> generateResponse(boolean error, String message, int code, Object responseObj, List<Link> links, HttpStatus status) {
+		return generateResponse(error, message, code, responseObj, links, status, null);
+	}
+
+	/**
+	 * Metodo que centraliza la creación de respuestas HTTP condicionales, devolviendo 304 sin cuerpo si el cliente ya
+	 * dispone de la versión actual del recurso
+	 *
+	 * @param error       presencia o ausencia de error
+	 * @param message     mensaje descriptivo
+	 * @param code        código numérico
+	 * @param responseObj datos que se devuelven en la respuesta
+	 * @param links       enlaces HATEOAS
+	 * @param status      código de estado
+	 * @param ifNoneMatch valor de la cabecera If-None-Match
+	 * @return respuesta HTTP
+	 */
+	public static ResponseEntity<Object> generateResponse(boolean error, String message, int code, Object responseObj, List<Link> links, HttpStatus status, String ifNoneMatch) {
+
+		HttpHeaders headers = new HttpHeaders();
+
+		for (Link link : links) {
+			headers.add(HttpHeaders.LINK, link.toString());
+		}
+
+		String etag = etag(responseObj);
+
+		if (etag != null) {
+
+			headers.setETag(etag);
+
+			if (status == HttpStatus.OK && matches(ifNoneMatch, etag)) {
+				return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+			}
+
+		}
 
 		Map<String, Object> map = new HashMap<>();
 
@@ -34,13 +72,77 @@ public class ResponseHandler {
 		map.put("message", message);
 		map.put("data", responseObj);
 
-		HttpHeaders headers = new HttpHeaders();
+		return new ResponseEntity<>(map, headers, status);
 
-		for (Link link : links) {
-			headers.add(HttpHeaders.LINK, link.toString());
+	}
+
+	/**
+	 * Metodo que obtiene la versión esperada por el cliente a partir de la cabecera If-Match
+	 *
+	 * @param ifMatch valor de la cabecera If-Match
+	 * @return versión esperada, null si no se exige ninguna o -1 si la etiqueta no corresponde a ninguna versión
+	 */
+	public static Long version(String ifMatch) {
+
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return null;
 		}
 
-		return new ResponseEntity<>(map, headers, status);
+		String tag = ifMatch.split(",")[0].trim();
+
+		if (tag.startsWith("W/")) {
+			tag = tag.substring(2);
+		}
+
+		try {
+			return Long.parseLong(tag.replace("\"", "").replace(GZIP_SUFFIX, ""));
+		} catch (NumberFormatException e) {
+			return -1L;
+		}
+
+	}
+
+	/**
+	 * Metodo que obtiene la etiqueta de entidad de un recurso versionado
+	 *
+	 * @param responseObj datos que se devuelven en la respuesta
+	 * @return etiqueta de entidad o null si el recurso no está versionado
+	 */
+	private static String etag(Object responseObj) {
+
+		if (responseObj instanceof Versioned versioned && versioned.getVersion() != null) {
+			return "\"" + versioned.getVersion() + "\"";
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Metodo que comprueba si una etiqueta de entidad aparece en la cabecera If-None-Match, en su variante sin comprimir
+	 * o comprimida
+	 *
+	 * @param ifNoneMatch valor de la cabecera If-None-Match
+	 * @param etag        etiqueta de entidad actual
+	 * @return true si el cliente dispone de la versión actual
+	 */
+	static boolean matches(String ifNoneMatch, String etag) {
+
+		if (ifNoneMatch == null) {
+			return false;
+		}
+
+		for (String tag : ifNoneMatch.split(",")) {
+
+			tag = tag.trim().replace(GZIP_SUFFIX + "\"", "\"");
+
+			if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+				return true;
+			}
+
+		}
+
+		return false;
 
 	}
 
@@ -8,6 +8,7 @@ import jakarta.validation.constraints.Null;
 import jakarta.validation.constraints.Size;
 import org.hibernate.validator.constraints.Range;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Objects;
@@ -19,7 +20,7 @@ import java.util.StringJoiner;
 		name = "Assessment",
 		description = "An assessment representation from a user for a movie"
 )
-public class Assessment {
+public class Assessment implements Versioned {
 
 	@Id
 	@NotNull(message = "The id field can not be empty", groups = OnUpdate.class)
@@ -76,15 +77,27 @@ public class Assessment {
 	)
 	private String comment;
 
+	@Version
+	@Null(groups = {OnUserCreate.class, OnMovieCreate.class})
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The version of the assessment, increased on every modification",
+			format = "int64",
+			type = "number",
+			example = "3"
+	)
+	private Long version;
+
 	public Assessment() {
 	}
 
-	public Assessment(String id, Integer rating, User user, Movie movie, String comment) {
+	public Assessment(String id, Integer rating, User user, Movie movie, String comment, Long version) {
 		this.id = id;
 		this.rating = rating;
 		this.user = user;
 		this.movie = movie;
 		this.comment = comment;
+		this.version = version;
 	}
 
 	public String getId() {
@@ -132,17 +145,27 @@ public class Assessment {
 		return this;
 	}
 
+	@Override
+	public Long getVersion() {
+		return version;
+	}
+
+	public Assessment setVersion(Long version) {
+		this.version = version;
+		return this;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		Assessment that = (Assessment) o;
-		return Objects.equals(id, that.id) && Objects.equals(rating, that.rating) && Objects.equals(user, that.user) && Objects.equals(movie, that.movie) && Objects.equals(comment, that.comment);
+		return Objects.equals(id, that.id) && Objects.equals(rating, that.rating) && Objects.equals(user, that.user) && Objects.equals(movie, that.movie) && Objects.equals(comment, that.comment) && Objects.equals(version, that.version);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(id, rating, user, movie, comment);
+		return Objects.hash(id, rating, user, movie, comment, version);
 	}
 
 	@Override
@@ -153,6 +176,7 @@ public class Assessment {
 				.add("user=" + user)
 				.add("movie=" + movie)
 				.add("comment='" + comment + "'")
+				.add("version=" + version)
 				.toString();
 	}
 
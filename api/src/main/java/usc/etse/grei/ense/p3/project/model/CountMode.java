@@ -0,0 +1,5 @@
+package usc.etse.grei.ense.p3.project.model;
+
+public enum CountMode {
+	EXACT, ESTIMATED, NONE
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package usc.etse.grei.ense.p3.project.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+@Document(collection = "credits")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+		name = "Credit",
+		description = "A participation of a person in the cast or crew of a movie"
+)
+public class Credit {
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The id of the person",
+			format = "string",
+			type = "string",
+			example = "1"
+	)
+	private String person;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The movie in which the person participates",
+			type = "object",
+			implementation = Movie.class
+	)
+	private Movie movie;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "Whether the person is part of the cast or the crew",
+			type = "string",
+			enumAsRef = true,
+			allowableValues = {"CAST", "CREW"}
+	)
+	private CreditType type;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The id of the relation in the cast or crew of the movie",
+			format = "int32",
+			type = "integer",
+			example = "1"
+	)
+	private Integer relationId;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			example = "Personaje",
+			description = "The character played, for cast credits",
+			format = "string",
+			type = "string"
+	)
+	private String character;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			example = "Director",
+			description = "The job performed, for crew credits",
+			format = "string",
+			type = "string"
+	)
+	private String job;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The instant the movie was deleted, hiding the credit until it is restored or purged",
+			format = "date-time",
+			type = "string"
+	)
+	private Instant deleted;
+
+	public Credit() {
+	}
+
+	public Credit(String person, Movie movie, CreditType type, Integer relationId, String character, String job) {
+		this.person = person;
+		this.movie = movie;
+		this.type = type;
+		this.relationId = relationId;
+		this.character = character;
+		this.job = job;
+	}
+
+	public String getPerson() {
+		return person;
+	}
+
+	public Credit setPerson(String person) {
+		this.person = person;
+		return this;
+	}
+
+	public Movie getMovie() {
+		return movie;
+	}
+
+	public Credit setMovie(Movie movie) {
+		this.movie = movie;
+		return this;
+	}
+
+	public CreditType getType() {
+		return type;
+	}
+
+	public Credit setType(CreditType type) {
+		this.type = type;
+		return this;
+	}
+
+	public Integer getRelationId() {
+		return relationId;
+	}
+
+	public Credit setRelationId(Integer relationId) {
+		this.relationId = relationId;
+		return this;
+	}
+
+	public String getCharacter() {
+		return character;
+	}
+
+	public Credit setCharacter(String character) {
+		this.character = character;
+		return this;
+	}
+
+	public String getJob() {
+		return job;
+	}
+
+	public Credit setJob(String job) {
+		this.job = job;
+		return this;
+	}
+
+	public Instant getDeleted() {
+		return deleted;
+	}
+
+	public Credit setDeleted(Instant deleted) {
+		this.deleted = deleted;
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		Credit credit = (Credit) o;
+		return Objects.equals(person, credit.person) && Objects.equals(movie, credit.movie) && type == credit.type && Objects.equals(relationId, credit.relationId) && Objects.equals(character, credit.character) && Objects.equals(job, credit.job);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(person, movie, type, relationId, character, job);
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", Credit.class.getSimpleName() + "[", "]")
+				.add("person='" + person + "'")
+				.add("movie=" + movie)
+				.add("type=" + type)
+				.add("relationId=" + relationId)
+				.add("character='" + character + "'")
+				.add("job='" + job + "'")
+				.toString();
+	}
+
+}
\ No newline at end of file
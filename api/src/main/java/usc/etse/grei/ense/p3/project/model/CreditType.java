@@ -0,0 +1,5 @@
+package usc.etse.grei.ense.p3.project.model;
+
+public enum CreditType {
+	CAST, CREW
+}
\ No newline at end of file
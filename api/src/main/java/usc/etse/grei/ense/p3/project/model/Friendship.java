@@ -0,0 +1,66 @@
+package usc.etse.grei.ense.p3.project.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+@Document(collection = "friendships")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+		name = "Friendship",
+		description = "A friend relation of a user, stored as an edge between two users"
+)
+public class Friendship extends FriendRelation {
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			example = "test@test.test",
+			description = "The email of the user that owns the relation",
+			format = "email",
+			type = "string"
+	)
+	private String user;
+
+	public Friendship() {
+	}
+
+	public Friendship(String user, String friendEmail, String friendName, FriendStatus status, Date requested, Date accepted) {
+		super(friendEmail, friendName, status, requested, accepted);
+		this.user = user;
+	}
+
+	public String getUser() {
+		return user;
+	}
+
+	public Friendship setUser(String user) {
+		this.user = user;
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		Friendship friendship = (Friendship) o;
+		return Objects.equals(user, friendship.user) && Objects.equals(getFriendEmail(), friendship.getFriendEmail());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(user, getFriendEmail());
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", Friendship.class.getSimpleName() + "[", "]")
+				.add("user='" + user + "'")
+				.add("friendEmail='" + getFriendEmail() + "'")
+				.add("status=" + getStatus())
+				.toString();
+	}
+
+}
\ No newline at end of file
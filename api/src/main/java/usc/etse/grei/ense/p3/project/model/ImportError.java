@@ -0,0 +1,81 @@
+package usc.etse.grei.ense.p3.project.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+		name = "ImportError",
+		description = "An error found while importing a line"
+)
+public class ImportError {
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The number of the rejected line",
+			format = "int64",
+			type = "number",
+			example = "12"
+	)
+	private Long line;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The reason why the line was rejected",
+			format = "string",
+			type = "string",
+			example = "Movie already exists"
+	)
+	private String message;
+
+	public ImportError() {
+	}
+
+	public ImportError(Long line, String message) {
+		this.line = line;
+		this.message = message;
+	}
+
+	public Long getLine() {
+		return line;
+	}
+
+	public ImportError setLine(Long line) {
+		this.line = line;
+		return this;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public ImportError setMessage(String message) {
+		this.message = message;
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		ImportError importError = (ImportError) o;
+		return Objects.equals(line, importError.line) && Objects.equals(message, importError.message);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(line, message);
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", ImportError.class.getSimpleName() + "[", "]")
+				.add("line=" + line)
+				.add("message='" + message + "'")
+				.toString();
+	}
+
+}
\ No newline at end of file
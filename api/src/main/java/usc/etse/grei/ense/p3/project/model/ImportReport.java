@@ -0,0 +1,161 @@
+package usc.etse.grei.ense.p3.project.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+		name = "ImportReport",
+		description = "The summary of a bulk import"
+)
+public class ImportReport {
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The number of non-empty lines read",
+			format = "int64",
+			type = "number",
+			example = "1000"
+	)
+	private Long lines;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The number of documents inserted",
+			format = "int64",
+			type = "number",
+			example = "990"
+	)
+	private Long inserted;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The number of lines rejected",
+			format = "int64",
+			type = "number",
+			example = "10"
+	)
+	private Long rejected;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The errors of the rejected lines, up to the configured limit",
+			format = "array",
+			type = "array"
+	)
+	private List<ImportError> errors;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The duration of the import in milliseconds",
+			format = "int64",
+			type = "number",
+			example = "2500"
+	)
+	private Long elapsed;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The number of documents inserted per second",
+			format = "double",
+			type = "number",
+			example = "396.0"
+	)
+	private Double throughput;
+
+	public ImportReport() {
+	}
+
+	public ImportReport(Long lines, Long inserted, Long rejected, List<ImportError> errors, Long elapsed, Double throughput) {
+		this.lines = lines;
+		this.inserted = inserted;
+		this.rejected = rejected;
+		this.errors = errors;
+		this.elapsed = elapsed;
+		this.throughput = throughput;
+	}
+
+	public Long getLines() {
+		return lines;
+	}
+
+	public ImportReport setLines(Long lines) {
+		this.lines = lines;
+		return this;
+	}
+
+	public Long getInserted() {
+		return inserted;
+	}
+
+	public ImportReport setInserted(Long inserted) {
+		this.inserted = inserted;
+		return this;
+	}
+
+	public Long getRejected() {
+		return rejected;
+	}
+
+	public ImportReport setRejected(Long rejected) {
+		this.rejected = rejected;
+		return this;
+	}
+
+	public List<ImportError> getErrors() {
+		return errors;
+	}
+
+	public ImportReport setErrors(List<ImportError> errors) {
+		this.errors = errors;
+		return this;
+	}
+
+	public Long getElapsed() {
+		return elapsed;
+	}
+
+	public ImportReport setElapsed(Long elapsed) {
+		this.elapsed = elapsed;
+		return this;
+	}
+
+	public Double getThroughput() {
+		return throughput;
+	}
+
+	public ImportReport setThroughput(Double throughput) {
+		this.throughput = throughput;
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		ImportReport importReport = (ImportReport) o;
+		return Objects.equals(lines, importReport.lines) && Objects.equals(inserted, importReport.inserted) && Objects.equals(rejected, importReport.rejected) && Objects.equals(errors, importReport.errors) && Objects.equals(elapsed, importReport.elapsed) && Objects.equals(throughput, importReport.throughput);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(lines, inserted, rejected, errors, elapsed, throughput);
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", ImportReport.class.getSimpleName() + "[", "]")
+				.add("lines=" + lines)
+				.add("inserted=" + inserted)
+				.add("rejected=" + rejected)
+				.add("errors=" + errors)
+				.add("elapsed=" + elapsed)
+				.add("throughput=" + throughput)
+				.toString();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package usc.etse.grei.ense.p3.project.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+		name = "IndexReport",
+		description = "State of the declared indexes of a collection"
+)
+public class IndexReport {
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The name of the collection",
+			format = "string",
+			type = "string",
+			example = "movies"
+	)
+	private String collection;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "Declared indexes that do not exist in the collection",
+			format = "array",
+			type = "array"
+	)
+	private List<String> missing;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "Existing indexes that have not been used since the server started",
+			format = "array",
+			type = "array"
+	)
+	private List<String> unused;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "Existing indexes that are not declared by the application",
+			format = "array",
+			type = "array"
+	)
+	private List<String> undeclared;
+
+	public IndexReport() {
+	}
+
+	public IndexReport(String collection, List<String> missing, List<String> unused, List<String> undeclared) {
+		this.collection = collection;
+		this.missing = missing;
+		this.unused = unused;
+		this.undeclared = undeclared;
+	}
+
+	public String getCollection() {
+		return collection;
+	}
+
+	public IndexReport setCollection(String collection) {
+		this.collection = collection;
+		return this;
+	}
+
+	public List<String> getMissing() {
+		return missing;
+	}
+
+	public IndexReport setMissing(List<String> missing) {
+		this.missing = missing;
+		return this;
+	}
+
+	public List<String> getUnused() {
+		return unused;
+	}
+
+	public IndexReport setUnused(List<String> unused) {
+		this.unused = unused;
+		return this;
+	}
+
+	public List<String> getUndeclared() {
+		return undeclared;
+	}
+
+	public IndexReport setUndeclared(List<String> undeclared) {
+		this.undeclared = undeclared;
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		IndexReport that = (IndexReport) o;
+		return Objects.equals(collection, that.collection) && Objects.equals(missing, that.missing) && Objects.equals(unused, that.unused) && Objects.equals(undeclared, that.undeclared);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(collection, missing, unused, undeclared);
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", IndexReport.class.getSimpleName() + "[", "]")
+				.add("collection='" + collection + "'")
+				.add("missing=" + missing)
+				.add("unused=" + unused)
+				.add("undeclared=" + undeclared)
+				.toString();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,254 @@
+package usc.etse.grei.ense.p3.project.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+@Document(collection = "jobs")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+		name = "Job",
+		description = "A background job that propagates changes to other documents"
+)
+public class Job {
+
+	@Id
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The id of the job",
+			format = "string",
+			type = "string",
+			example = "1"
+	)
+	private String id;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The type of the job",
+			type = "string",
+			enumAsRef = true
+	)
+	private JobType type;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The identifier of the document whose change is propagated",
+			format = "string",
+			type = "string",
+			example = "1"
+	)
+	private String target;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The new value that is propagated",
+			format = "string",
+			type = "string",
+			example = "Inception"
+	)
+	private String value;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The current status of the job",
+			type = "string",
+			enumAsRef = true,
+			allowableValues = {"PENDING", "RUNNING", "DONE", "FAILED"}
+	)
+	private JobStatus status;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The number of documents modified by the job",
+			format = "int64",
+			type = "number",
+			example = "100"
+	)
+	private Long modified;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The error message of a failed job",
+			format = "string",
+			type = "string"
+	)
+	private String error;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The instant the job was created",
+			format = "date-time",
+			type = "string"
+	)
+	private Instant created;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The instant the job finished",
+			format = "date-time",
+			type = "string"
+	)
+	private Instant finished;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The identifier of the application instance that is running the job",
+			format = "string",
+			type = "string"
+	)
+	private String owner;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The instant the lease of the running job expires if its owner stops renewing it",
+			format = "date-time",
+			type = "string"
+	)
+	private Instant lease;
+
+	public Job() {
+	}
+
+	public Job(JobType type, String target, String value) {
+		this.type = type;
+		this.target = target;
+		this.value = value;
+		this.status = JobStatus.PENDING;
+		this.created = Instant.now();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Job setId(String id) {
+		this.id = id;
+		return this;
+	}
+
+	public JobType getType() {
+		return type;
+	}
+
+	public Job setType(JobType type) {
+		this.type = type;
+		return this;
+	}
+
+	public String getTarget() {
+		return target;
+	}
+
+	public Job setTarget(String target) {
+		this.target = target;
+		return this;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public Job setValue(String value) {
+		this.value = value;
+		return this;
+	}
+
+	public JobStatus getStatus() {
+		return status;
+	}
+
+	public Job setStatus(JobStatus status) {
+		this.status = status;
+		return this;
+	}
+
+	public Long getModified() {
+		return modified;
+	}
+
+	public Job setModified(Long modified) {
+		this.modified = modified;
+		return this;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public Job setError(String error) {
+		this.error = error;
+		return this;
+	}
+
+	public Instant getCreated() {
+		return created;
+	}
+
+	public Job setCreated(Instant created) {
+		this.created = created;
+		return this;
+	}
+
+	public Instant getFinished() {
+		return finished;
+	}
+
+	public Job setFinished(Instant finished) {
+		this.finished = finished;
+		return this;
+	}
+
+	public String getOwner() {
+		return owner;
+	}
+
+	public Job setOwner(String owner) {
+		this.owner = owner;
+		return this;
+	}
+
+	public Instant getLease() {
+		return lease;
+	}
+
+	public Job setLease(Instant lease) {
+		this.lease = lease;
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		Job job = (Job) o;
+		return Objects.equals(id, job.id) && type == job.type && Objects.equals(target, job.target) && Objects.equals(value, job.value) && status == job.status && Objects.equals(modified, job.modified) && Objects.equals(error, job.error) && Objects.equals(created, job.created) && Objects.equals(finished, job.finished) && Objects.equals(owner, job.owner) && Objects.equals(lease, job.lease);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, type, target, value, status, modified, error, created, finished, owner, lease);
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", Job.class.getSimpleName() + "[", "]")
+				.add("id='" + id + "'")
+				.add("type=" + type)
+				.add("target='" + target + "'")
+				.add("value='" + value + "'")
+				.add("status=" + status)
+				.add("modified=" + modified)
+				.add("error='" + error + "'")
+				.add("created=" + created)
+				.add("finished=" + finished)
+				.add("owner='" + owner + "'")
+				.add("lease=" + lease)
+				.toString();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,5 @@
+package usc.etse.grei.ense.p3.project.model;
+
+public enum JobStatus {
+	PENDING, RUNNING, DONE, FAILED
+}
\ No newline at end of file
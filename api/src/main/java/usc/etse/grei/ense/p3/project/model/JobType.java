@@ -0,0 +1,5 @@
+package usc.etse.grei.ense.p3.project.model;
+
+public enum JobType {
+	MOVIE_TITLE, USER_NAME, USER_DELETE, PERSON_NAME
+}
\ No newline at end of file
@@ -8,8 +8,10 @@ import jakarta.validation.constraints.Null;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
@@ -20,7 +22,7 @@ import java.util.StringJoiner;
 		name = "Movie",
 		description = "A complete movie representation"
 )
-public class Movie {
+public class Movie implements Versioned {
 
 	@Id
 	@NotBlank(message = "The title field can not be empty", groups = OnRelation.class)
@@ -193,10 +195,40 @@ public class Movie {
 	)
 	private Long revenue;
 
+	@Null(groups = {OnCreate.class, OnRelation.class})
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The aggregated ratings of the movie",
+			type = "object",
+			implementation = Ratings.class
+	)
+	private Ratings ratings;
+
+	@Version
+	@Null(groups = {OnCreate.class, OnRelation.class})
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The version of the movie, increased on every modification",
+			format = "int64",
+			type = "number",
+			example = "3"
+	)
+	private Long version;
+
+	@Null(groups = {OnCreate.class, OnRelation.class})
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The instant the movie was deleted, until it is restored or purged",
+			format = "date-time",
+			type = "string",
+			example = "2024-01-01T00:00:00Z"
+	)
+	private Instant deleted;
+
 	public Movie() {
 	}
 
-	public Movie(String id, String title, String overview, String tagline, Collection collection, List<String> genres, Date releaseDate, List<String> keywords, List<Producer> producers, List<Crew> crew, List<Cast> cast, List<Resource> resources, Long budget, Status status, Integer runtime, Long revenue) {
+	public Movie(String id, String title, String overview, String tagline, Collection collection, List<String> genres, Date releaseDate, List<String> keywords, List<Producer> producers, List<Crew> crew, List<Cast> cast, List<Resource> resources, Long budget, Status status, Integer runtime, Long revenue, Ratings ratings, Long version, Instant deleted) {
 		this.id = id;
 		this.title = title;
 		this.overview = overview;
@@ -213,6 +245,9 @@ public class Movie {
 		this.status = status;
 		this.runtime = runtime;
 		this.revenue = revenue;
+		this.ratings = ratings;
+		this.version = version;
+		this.deleted = deleted;
 	}
 
 	public String getId() {
@@ -359,17 +394,45 @@ public class Movie {
 		return this;
 	}
 
+	public Ratings getRatings() {
+		return ratings;
+	}
+
+	public Movie setRatings(Ratings ratings) {
+		this.ratings = ratings;
+		return this;
+	}
+
+	@Override
+	public Long getVersion() {
+		return version;
+	}
+
+	public Movie setVersion(Long version) {
+		this.version = version;
+		return this;
+	}
+
+	public Instant getDeleted() {
+		return deleted;
+	}
+
+	public Movie setDeleted(Instant deleted) {
+		this.deleted = deleted;
+		return this;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		Movie movie = (Movie) o;
-		return Objects.equals(id, movie.id) && Objects.equals(title, movie.title) && Objects.equals(overview, movie.overview) && Objects.equals(tagline, movie.tagline) && Objects.equals(collection, movie.collection) && Objects.equals(genres, movie.genres) && Objects.equals(releaseDate, movie.releaseDate) && Objects.equals(keywords, movie.keywords) && Objects.equals(producers, movie.producers) && Objects.equals(crew, movie.crew) && Objects.equals(cast, movie.cast) && Objects.equals(resources, movie.resources) && Objects.equals(budget, movie.budget) && status == movie.status && Objects.equals(runtime, movie.runtime) && Objects.equals(revenue, movie.revenue);
+		return Objects.equals(id, movie.id) && Objects.equals(title, movie.title) && Objects.equals(overview, movie.overview) && Objects.equals(tagline, movie.tagline) && Objects.equals(collection, movie.collection) && Objects.equals(genres, movie.genres) && Objects.equals(releaseDate, movie.releaseDate) && Objects.equals(keywords, movie.keywords) && Objects.equals(producers, movie.producers) && Objects.equals(crew, movie.crew) && Objects.equals(cast, movie.cast) && Objects.equals(resources, movie.resources) && Objects.equals(budget, movie.budget) && status == movie.status && Objects.equals(runtime, movie.runtime) && Objects.equals(revenue, movie.revenue) && Objects.equals(ratings, movie.ratings) && Objects.equals(version, movie.version) && Objects.equals(deleted, movie.deleted);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(id, title, overview, tagline, collection, genres, releaseDate, keywords, producers, crew, cast, resources, budget, status, runtime, revenue);
+		return Objects.hash(id, title, overview, tagline, collection, genres, releaseDate, keywords, producers, crew, cast, resources, budget, status, runtime, revenue, ratings, version, deleted);
 	}
 
 	@Override
@@ -391,6 +454,9 @@ public class Movie {
 				.add("status=" + status)
 				.add("runtime=" + runtime)
 				.add("revenue=" + revenue)
+				.add("ratings=" + ratings)
+				.add("version=" + version)
+				.add("deleted=" + deleted)
 				.toString();
 	}
 
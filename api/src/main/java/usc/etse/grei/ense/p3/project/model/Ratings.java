@@ -0,0 +1,160 @@
+package usc.etse.grei.ense.p3.project.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+		name = "Ratings",
+		description = "The aggregated ratings of the assessments of a movie"
+)
+public class Ratings {
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The number of assessments",
+			format = "int64",
+			type = "number",
+			example = "10"
+	)
+	private Long count;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The sum of the ratings",
+			format = "int64",
+			type = "number",
+			example = "75"
+	)
+	private Long sum;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The sum of the squared ratings",
+			format = "int64",
+			type = "number",
+			example = "585"
+	)
+	private Long squares;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The number of assessments for each rating",
+			type = "object",
+			example = "{\"5\": 4, \"8\": 6}"
+	)
+	private Map<String, Long> histogram;
+
+	public Ratings() {
+	}
+
+	public Ratings(Long count, Long sum, Long squares, Map<String, Long> histogram) {
+		this.count = count;
+		this.sum = sum;
+		this.squares = squares;
+		this.histogram = histogram;
+	}
+
+	public Long getCount() {
+		return count;
+	}
+
+	public Ratings setCount(Long count) {
+		this.count = count;
+		return this;
+	}
+
+	public Long getSum() {
+		return sum;
+	}
+
+	public Ratings setSum(Long sum) {
+		this.sum = sum;
+		return this;
+	}
+
+	public Long getSquares() {
+		return squares;
+	}
+
+	public Ratings setSquares(Long squares) {
+		this.squares = squares;
+		return this;
+	}
+
+	public Map<String, Long> getHistogram() {
+		return histogram;
+	}
+
+	public Ratings setHistogram(Map<String, Long> histogram) {
+		this.histogram = histogram;
+		return this;
+	}
+
+	@JsonProperty(value = "average", access = JsonProperty.Access.READ_ONLY)
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The average rating",
+			format = "double",
+			type = "number",
+			example = "7.5"
+	)
+	public Double getAverage() {
+
+		if (count == null || count == 0 || sum == null) {
+			return null;
+		}
+
+		return (double) sum / count;
+
+	}
+
+	@JsonProperty(value = "deviation", access = JsonProperty.Access.READ_ONLY)
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The standard deviation of the ratings",
+			format = "double",
+			type = "number",
+			example = "1.5"
+	)
+	public Double getDeviation() {
+
+		Double average = getAverage();
+
+		if (average == null || squares == null) {
+			return null;
+		}
+
+		return Math.sqrt(Math.max(0, (double) squares / count - average * average));
+
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		Ratings ratings = (Ratings) o;
+		return Objects.equals(count, ratings.count) && Objects.equals(sum, ratings.sum) && Objects.equals(squares, ratings.squares) && Objects.equals(histogram, ratings.histogram);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(count, sum, squares, histogram);
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", Ratings.class.getSimpleName() + "[", "]")
+				.add("count=" + count)
+				.add("sum=" + sum)
+				.add("squares=" + squares)
+				.add("histogram=" + histogram)
+				.toString();
+	}
+
+}
\ No newline at end of file
@@ -9,6 +9,7 @@ public class Result<T> {
 	private final String messaje;
 	private final Integer internalCode;
 	private final Code externalCode;
+	private String job;
 
 	public Result(T result, boolean error, String messaje, Integer internalCode, Code externalCode) {
 		this.result = result;
@@ -38,6 +39,15 @@ public class Result<T> {
 		return externalCode;
 	}
 
+	public String getJob() {
+		return job;
+	}
+
+	public Result<T> setJob(String job) {
+		this.job = job;
+		return this;
+	}
+
 	public HttpStatus getStatus() {
 
 		return switch (externalCode) {
@@ -49,6 +59,7 @@ public class Result<T> {
 			case FORBIDDEN -> HttpStatus.FORBIDDEN;
 			case NOT_FOUND -> HttpStatus.NOT_FOUND;
 			case CONFLICT -> HttpStatus.CONFLICT;
+			case PRECONDITION_FAILED -> HttpStatus.PRECONDITION_FAILED;
 			default -> HttpStatus.BAD_REQUEST;
 		};
 
@@ -64,7 +75,8 @@ public class Result<T> {
 		UNAUTHORIZED(401),
 		FORBIDDEN(403),
 		NOT_FOUND(404),
-		CONFLICT(409);
+		CONFLICT(409),
+		PRECONDITION_FAILED(412);
 
 		private final int code;
 
@@ -0,0 +1,101 @@
+package usc.etse.grei.ense.p3.project.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+		name = "Suggestion",
+		description = "A suggestion for a search prefix"
+)
+public class Suggestion {
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The id of the suggested resource",
+			format = "string",
+			type = "string",
+			example = "1"
+	)
+	private String id;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The suggested text",
+			format = "string",
+			type = "string",
+			example = "Inception"
+	)
+	private String text;
+
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The popularity of the suggestion",
+			format = "int64",
+			type = "number",
+			example = "120"
+	)
+	private Long weight;
+
+	public Suggestion() {
+	}
+
+	public Suggestion(String id, String text, Long weight) {
+		this.id = id;
+		this.text = text;
+		this.weight = weight;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Suggestion setId(String id) {
+		this.id = id;
+		return this;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public Suggestion setText(String text) {
+		this.text = text;
+		return this;
+	}
+
+	public Long getWeight() {
+		return weight;
+	}
+
+	public Suggestion setWeight(Long weight) {
+		this.weight = weight;
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		Suggestion suggestion = (Suggestion) o;
+		return Objects.equals(id, suggestion.id) && Objects.equals(text, suggestion.text) && Objects.equals(weight, suggestion.weight);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, text, weight);
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", Suggestion.class.getSimpleName() + "[", "]")
+				.add("id='" + id + "'")
+				.add("text='" + text + "'")
+				.add("weight=" + weight)
+				.toString();
+	}
+
+}
\ No newline at end of file
@@ -6,6 +6,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import org.hibernate.validator.constraints.URL;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -18,7 +19,7 @@ import java.util.StringJoiner;
 		name = "User",
 		description = "A complete user representation"
 )
-public class User {
+public class User implements Versioned {
 
 	@Id
 	@NotBlank(message = "The email field can not be empty", groups = {OnCreate.class, OnUpdate.class, OnRelation.class})
@@ -83,16 +84,6 @@ public class User {
 	)
 	private Date birthday;
 
-	@Null(message = "The friends field is not allowed", groups = {OnCreate.class, OnUpdate.class, OnRelation.class})
-	@Schema(
-			requiredMode = Schema.RequiredMode.AUTO,
-			hidden = true,
-			description = "The friends of the user",
-			format = "array",
-			type = "array"
-	)
-	private List<@Valid FriendRelation> friends;
-
 	@NotBlank(message = "The password field can not be empty", groups = {OnCreate.class, OnUpdate.class})
 	@Null(message = "The password field is not allowed", groups = OnRelation.class)
 	@Schema(
@@ -115,16 +106,27 @@ public class User {
 	)
 	private List<String> roles;
 
+	@Version
+	@Null(groups = {OnCreate.class, OnRelation.class})
+	@Schema(
+			requiredMode = Schema.RequiredMode.AUTO,
+			description = "The version of the user, increased on every modification",
+			format = "int64",
+			type = "number",
+			example = "3"
+	)
+	private Long version;
+
 	public User() {
 	}
 
-	public User(String email, String name, String country, String picture, Date birthday, List<FriendRelation> friends) {
+	public User(String email, String name, String country, String picture, Date birthday, Long version) {
 		this.email = email;
 		this.name = name;
 		this.country = country;
 		this.picture = picture;
 		this.birthday = birthday;
-		this.friends = friends;
+		this.version = version;
 	}
 
 	public String getEmail() {
@@ -172,15 +174,6 @@ public class User {
 		return this;
 	}
 
-	public List<FriendRelation> getFriends() {
-		return friends;
-	}
-
-	public User setFriends(List<FriendRelation> friends) {
-		this.friends = friends;
-		return this;
-	}
-
 	public String getPassword() {
 		return password;
 	}
@@ -199,17 +192,27 @@ public class User {
 		return this;
 	}
 
+	@Override
+	public Long getVersion() {
+		return version;
+	}
+
+	public User setVersion(Long version) {
+		this.version = version;
+		return this;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		User user = (User) o;
-		return Objects.equals(email, user.email) && Objects.equals(name, user.name) && Objects.equals(country, user.country) && Objects.equals(picture, user.picture) && Objects.equals(birthday, user.birthday) && Objects.equals(friends, user.friends);
+		return Objects.equals(email, user.email) && Objects.equals(name, user.name) && Objects.equals(country, user.country) && Objects.equals(picture, user.picture) && Objects.equals(birthday, user.birthday) && Objects.equals(version, user.version);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(email, name, country, picture, birthday, friends);
+		return Objects.hash(email, name, country, picture, birthday, version);
 	}
 
 	@Override
@@ -220,7 +223,7 @@ public class User {
 				.add("country='" + country + "'")
 				.add("picture='" + picture + "'")
 				.add("birthday=" + birthday)
-				.add("friends=" + friends)
+				.add("version=" + version)
 				.toString();
 	}
 
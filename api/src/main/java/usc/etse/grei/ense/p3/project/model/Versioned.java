@@ -0,0 +1,10 @@
+package usc.etse.grei.ense.p3.project.model;
+
+/**
+ * Interfaz de los documentos cuya versión se incrementa en cada modificación
+ */
+public interface Versioned {
+
+	Long getVersion();
+
+}
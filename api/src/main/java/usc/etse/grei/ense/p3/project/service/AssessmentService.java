@@ -3,15 +3,19 @@ package usc.etse.grei.ense.p3.project.service;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import usc.etse.grei.ense.p3.project.model.*;
 import usc.etse.grei.ense.p3.project.repository.AssessmentRepository;
 import usc.etse.grei.ense.p3.project.repository.MovieRepository;
 import usc.etse.grei.ense.p3.project.repository.UserRepository;
+import usc.etse.grei.ense.p3.project.util.PageUtil;
 import usc.etse.grei.ense.p3.project.util.PatchUtil;
 
 import java.util.List;
@@ -27,17 +31,21 @@ public class AssessmentService {
 	private final AssessmentRepository assessments;
 	private final MongoTemplate mongo;
 	private final PatchUtil patchUtil;
+	private final PageUtil pageUtil;
 	private final UserRepository users;
 	private final MovieRepository movies;
+	private final RatingService ratings;
 	private final Validator validator;
 
 	@Autowired
-	public AssessmentService(AssessmentRepository assessments, UserRepository users, MovieRepository movies, MongoTemplate mongo, PatchUtil patchUtil, Validator validator) {
+	public AssessmentService(AssessmentRepository assessments, UserRepository users, MovieRepository movies, RatingService ratings, MongoTemplate mongo, PatchUtil patchUtil, PageUtil pageUtil, Validator validator) {
 		this.users = users;
 		this.movies = movies;
+		this.ratings = ratings;
 		this.assessments = assessments;
 		this.mongo = mongo;
 		this.patchUtil = patchUtil;
+		this.pageUtil = pageUtil;
 		this.validator = validator;
 	}
 
@@ -48,21 +56,16 @@ public class AssessmentService {
 	 * @param size   número de comentarios por página
 	 * @param sort   criterio de ordenación
 	 * @param filter criterio de filtrado por usuario o película
+	 * @param count  modo de recuento del total de comentarios
 	 * @return resultado de la búsqueda
 	 */
-	public Result<Page<Assessment>> get(int page, int size, Sort sort, Example<Assessment> filter) {
+	public Result<Page<Assessment>> get(int page, int size, Sort sort, Example<Assessment> filter, CountMode count) {
 
 		Pageable request = PageRequest.of(page, size, sort);
 
 		Criteria criteria = Criteria.byExample(filter);
 
-		Query query = Query.query(criteria).with(request);
-		query.fields().include("_id", "rating", "user", "movie", "comment");
-
-		List<Assessment> result = mongo.find(query, Assessment.class);
-		long totalElements = mongo.count(Query.query(criteria), Assessment.class);
-
-		Page<Assessment> pageResult = new PageImpl<>(result, request, totalElements);
+		Page<Assessment> pageResult = pageUtil.find(criteria, request, Assessment.class, count, "_id", "rating", "user", "movie", "comment");
 
 		return new Result<>(pageResult, false, "Assessments data", 0, Result.Code.OK);
 
@@ -79,7 +82,7 @@ public class AssessmentService {
 
 		try {
 
-			Movie movie = movies.findById(movieId).orElse(null);
+			Movie movie = movies.findById(movieId).filter(found -> found.getDeleted() == null).orElse(null);
 
 			if (movie == null) {
 				return new Result<>(null, false, "Movie not found", 0, Result.Code.NOT_FOUND);
@@ -101,15 +104,16 @@ public class AssessmentService {
 			relationUser.setEmail(existUser.getEmail());
 			relationUser.setName(existUser.getName());
 
-			Example<Assessment> assessmentExample = Example.of(new Assessment().setUser(relationUser).setMovie(relationMovie));
-			if (assessments.findOne(assessmentExample).isPresent()) {
-				return new Result<>(null, false, "Assessment already exists for this user and movie", 0, Result.Code.CONFLICT);
-			}
-
 			assessments.insert(assessment);
 
+			ratings.add(assessment.getMovie().getId(), assessment.getRating());
+
 			return new Result<>(assessment, false, "Assessment created", 0, Result.Code.CREATED);
 
+		} catch (DuplicateKeyException e) {
+
+			return new Result<>(null, false, "Assessment already exists for this user and movie", 0, Result.Code.CONFLICT);
+
 		} catch (Exception e) {
 
 			return new Result<>(null, true, e.getLocalizedMessage(), 0, Result.Code.BAD_REQUEST);
@@ -141,7 +145,7 @@ public class AssessmentService {
 
 			assessment.setUser(relationUser);
 
-			Movie existMovie = movies.findById(assessment.getMovie().getId()).orElse(null);
+			Movie existMovie = movies.findById(assessment.getMovie().getId()).filter(found -> found.getDeleted() == null).orElse(null);
 
 			if (existMovie == null) {
 				return new Result<>(null, false, "Movie not found", 0, Result.Code.NOT_FOUND);
@@ -151,15 +155,16 @@ public class AssessmentService {
 			relationMovie.setId(existMovie.getId());
 			relationMovie.setTitle(existMovie.getTitle());
 
-			Example<Assessment> assessmentExample = Example.of(new Assessment().setUser(relationUser).setMovie(relationMovie));
-			if (assessments.findOne(assessmentExample).isPresent()) {
-				return new Result<>(null, false, "Assessment already exists for this user and movie", 0, Result.Code.CONFLICT);
-			}
-
 			assessments.insert(assessment);
 
+			ratings.add(assessment.getMovie().getId(), assessment.getRating());
+
 			return new Result<>(assessment, false, "Assessment created", 0, Result.Code.CREATED);
 
+		} catch (DuplicateKeyException e) {
+
+			return new Result<>(null, false, "Assessment already exists for this user and movie", 0, Result.Code.CONFLICT);
+
 		} catch (Exception e) {
 
 			return new Result<>(null, true, e.getLocalizedMessage(), 0, Result.Code.BAD_REQUEST);
@@ -174,9 +179,10 @@ public class AssessmentService {
 	 * @param movieId      identificador de la película
 	 * @param assessmentId identificador del comentario
 	 * @param operations   lista de operaciones de modificación
+	 * @param version      versión esperada del comentario o null si no se exige ninguna
 	 * @return resultado de la modificación
 	 */
-	public Result<Assessment> updateForMovie(String movieId, String assessmentId, List<Map<String, Object>> operations) {
+	public Result<Assessment> updateForMovie(String movieId, String assessmentId, List<Map<String, Object>> operations, Long version) {
 
 		Assessment assessment = assessments.findById(assessmentId).orElse(null);
 
@@ -184,7 +190,7 @@ public class AssessmentService {
 			return new Result<>(null, false, "Assessment not found", 0, Result.Code.NOT_FOUND);
 		}
 
-		return update(assessment, operations);
+		return update(assessment, operations, version);
 
 	}
 
@@ -194,9 +200,10 @@ public class AssessmentService {
 	 * @param userId       identificador del usuario
 	 * @param assessmentId identificador del comentario
 	 * @param operations   lista de operaciones de modificación
+	 * @param version      versión esperada del comentario o null si no se exige ninguna
 	 * @return resultado de la modificación
 	 */
-	public Result<Assessment> updateForUser(String userId, String assessmentId, List<Map<String, Object>> operations) {
+	public Result<Assessment> updateForUser(String userId, String assessmentId, List<Map<String, Object>> operations, Long version) {
 
 		Assessment assessment = assessments.findById(assessmentId).orElse(null);
 
@@ -204,7 +211,7 @@ public class AssessmentService {
 			return new Result<>(null, false, "Assessment not found", 0, Result.Code.NOT_FOUND);
 		}
 
-		return update(assessment, operations);
+		return update(assessment, operations, version);
 
 	}
 
@@ -213,13 +220,18 @@ public class AssessmentService {
 	 *
 	 * @param assessment comentario
 	 * @param operations lista de operaciones de modificación
+	 * @param version    versión esperada del comentario o null si no se exige ninguna
 	 * @return resultado de la modificación
 	 */
-	public Result<Assessment> update(Assessment assessment, List<Map<String, Object>> operations) {
+	public Result<Assessment> update(Assessment assessment, List<Map<String, Object>> operations, Long version) {
 
 		try {
 
-			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/movie") || op.get("path").equals("/user")));
+			if (version != null && !version.equals(assessment.getVersion())) {
+				return new Result<>(null, true, "Assessment version does not match", 0, Result.Code.PRECONDITION_FAILED);
+			}
+
+			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/id") || op.get("path").equals("/movie") || op.get("path").equals("/user") || op.get("path").equals("/version")));
 
 			Assessment filteredAssessment = patchUtil.patch(assessment, operations);
 
@@ -229,7 +241,16 @@ public class AssessmentService {
 				return new Result<>(null, true, "Not valid due to violations", 0, Result.Code.BAD_REQUEST);
 			}
 
-			Assessment updatedAssessment = assessments.save(filteredAssessment);
+			Query query = Query.query(Criteria.where("id").is(assessment.getId()).and("version").is(assessment.getVersion()));
+			Update update = patchUtil.toUpdate(assessment, filteredAssessment, operations).inc("version", 1);
+
+			Assessment updatedAssessment = mongo.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Assessment.class);
+
+			if (updatedAssessment == null) {
+				return new Result<>(null, true, "Assessment modified concurrently", 0, version != null ? Result.Code.PRECONDITION_FAILED : Result.Code.CONFLICT);
+			}
+
+			ratings.replace(updatedAssessment.getMovie().getId(), assessment.getRating(), updatedAssessment.getRating());
 
 			return new Result<>(updatedAssessment, false, "Assessment updated", 0, Result.Code.OK);
 
@@ -280,16 +301,23 @@ public class AssessmentService {
 	}
 
 	/**
-	 * Metodo que elimina un comentario de la base de datos
+	 * Metodo que elimina un comentario de la base de datos, descontando su valoración de los agregados de la película
+	 * solo si esta solicitud lo ha eliminado realmente, ya que otra solicitud puede haberlo eliminado antes
 	 *
 	 * @param assessment comentario
 	 * @return resultado de la eliminación
 	 */
 	public Result<Assessment> delete(Assessment assessment) {
 
-		assessments.deleteById(assessment.getId());
+		Assessment removedAssessment = mongo.findAndRemove(Query.query(Criteria.where("id").is(assessment.getId())), Assessment.class);
+
+		if (removedAssessment == null) {
+			return new Result<>(null, false, "Assessment not found", 0, Result.Code.NOT_FOUND);
+		}
+
+		ratings.remove(removedAssessment.getMovie().getId(), removedAssessment.getRating());
 
-		return new Result<>(assessment, false, "Assessment deleted", 0, Result.Code.OK);
+		return new Result<>(removedAssessment, false, "Assessment deleted", 0, Result.Code.OK);
 
 	}
 
@@ -1,13 +1,15 @@
 package usc.etse.grei.ense.p3.project.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import usc.etse.grei.ense.p3.project.model.User;
-import usc.etse.grei.ense.p3.project.repository.UserRepository;
 
 /**
  * Servicio que implementa la lógica de negocio para la autenticación
@@ -15,11 +17,13 @@ import usc.etse.grei.ense.p3.project.repository.UserRepository;
 @Service
 public class AuthenticationService implements UserDetailsService {
 
-	private final UserRepository users;
+	private final MongoTemplate mongo;
+	private final UserCache cache;
 
 	@Autowired
-	public AuthenticationService(UserRepository users) {
-		this.users = users;
+	public AuthenticationService(MongoTemplate mongo, UserCache cache) {
+		this.mongo = mongo;
+		this.cache = cache;
 	}
 
 	/**
@@ -32,7 +36,11 @@ public class AuthenticationService implements UserDetailsService {
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-		User user = users.findById(username).orElseThrow(() -> new UsernameNotFoundException(username));
+		User user = cache.getPrincipal(username, this::findPrincipal);
+
+		if (user == null) {
+			throw new UsernameNotFoundException(username);
+		}
 
 		return org.springframework.security.core.userdetails.User.builder()
 				.username(user.getEmail())
@@ -43,4 +51,19 @@ public class AuthenticationService implements UserDetailsService {
 				.build();
 	}
 
+	/**
+	 * Metodo que obtiene únicamente el correo, la contraseña y los roles de un usuario
+	 *
+	 * @param email correo electrónico del usuario
+	 * @return usuario con las credenciales o null si no existe
+	 */
+	private User findPrincipal(String email) {
+
+		Query query = Query.query(Criteria.where("email").is(email));
+		query.fields().include("email", "password", "roles");
+
+		return mongo.findOne(query, User.class);
+
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.*;
+import usc.etse.grei.ense.p3.project.repository.PersonRepository;
+import usc.etse.grei.ense.p3.project.util.PageUtil;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Servicio que mantiene el índice inverso de la participación de cada persona en repartos y equipos de películas
+ */
+@Service
+public class CreditService {
+
+	private final MongoTemplate mongo;
+	private final PageUtil pageUtil;
+	private final PersonRepository persons;
+
+	@Autowired
+	public CreditService(MongoTemplate mongo, PageUtil pageUtil, PersonRepository persons) {
+		this.mongo = mongo;
+		this.pageUtil = pageUtil;
+		this.persons = persons;
+	}
+
+	/**
+	 * Metodo que obtiene las películas no eliminadas en las que ha participado una persona, ordenadas por título
+	 *
+	 * @param person identificador de la persona
+	 * @param page   número de página
+	 * @param size   número de participaciones por página
+	 * @param count  modo de recuento del total
+	 * @return resultado de la búsqueda
+	 */
+	public Result<Page<Credit>> get(String person, int page, int size, CountMode count) {
+
+		if (!persons.existsById(person)) {
+			return new Result<>(null, false, "Person not found", 0, Result.Code.NOT_FOUND);
+		}
+
+		Pageable request = PageRequest.of(page, size, Sort.by("movie.title"));
+
+		Page<Credit> pageResult = pageUtil.find(Criteria.where("person").is(person).and("deleted").exists(false), request, Credit.class, count, "person", "movie", "type", "relationId", "character", "job");
+
+		return new Result<>(pageResult, false, "Person movies", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que registra la participación de un actor en el reparto de una película
+	 *
+	 * @param movie película con su identificador y título
+	 * @param cast  actor añadido al reparto
+	 */
+	public void put(Movie movie, Cast cast) {
+		mongo.upsert(relation(movie.getId(), CreditType.CAST, cast.getRelationId()), update(movie, cast), Credit.class);
+	}
+
+	/**
+	 * Metodo que registra la participación de un trabajador en el equipo de una película
+	 *
+	 * @param movie película con su identificador y título
+	 * @param crew  trabajador añadido al equipo
+	 */
+	public void put(Movie movie, Crew crew) {
+		mongo.upsert(relation(movie.getId(), CreditType.CREW, crew.getRelationId()), update(movie, crew), Credit.class);
+	}
+
+	/**
+	 * Metodo que sustituye la participación de un actor modificado en el reparto de una película
+	 *
+	 * @param movie      película con su identificador y título
+	 * @param relationId identificador de la relación antes de la modificación
+	 * @param cast       actor modificado
+	 */
+	public void replace(Movie movie, Integer relationId, Cast cast) {
+		mongo.upsert(relation(movie.getId(), CreditType.CAST, relationId), update(movie, cast), Credit.class);
+	}
+
+	/**
+	 * Metodo que sustituye la participación de un trabajador modificado en el equipo de una película
+	 *
+	 * @param movie      película con su identificador y título
+	 * @param relationId identificador de la relación antes de la modificación
+	 * @param crew       trabajador modificado
+	 */
+	public void replace(Movie movie, Integer relationId, Crew crew) {
+		mongo.upsert(relation(movie.getId(), CreditType.CREW, relationId), update(movie, crew), Credit.class);
+	}
+
+	/**
+	 * Metodo que elimina una participación en el reparto o el equipo de una película
+	 *
+	 * @param movieId    identificador de la película
+	 * @param type       reparto o equipo
+	 * @param relationId identificador de la relación
+	 */
+	public void remove(String movieId, CreditType type, Integer relationId) {
+		mongo.remove(relation(movieId, type, relationId), Credit.class);
+	}
+
+	/**
+	 * Metodo que registra con una única escritura por lotes el reparto y el equipo de varias películas
+	 *
+	 * @param movies películas con su identificador, título, reparto y equipo
+	 */
+	public void putAll(List<Movie> movies) {
+
+		BulkOperations operations = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Credit.class);
+		int credits = 0;
+
+		for (Movie movie : movies) {
+
+			for (Cast cast : movie.getCast() != null ? movie.getCast() : List.<Cast>of()) {
+				if (cast.getId() != null && cast.getRelationId() != null) {
+					operations.upsert(relation(movie.getId(), CreditType.CAST, cast.getRelationId()), update(movie, cast));
+					credits++;
+				}
+			}
+
+			for (Crew crew : movie.getCrew() != null ? movie.getCrew() : List.<Crew>of()) {
+				if (crew.getId() != null && crew.getRelationId() != null) {
+					operations.upsert(relation(movie.getId(), CreditType.CREW, crew.getRelationId()), update(movie, crew));
+					credits++;
+				}
+			}
+
+		}
+
+		if (credits > 0) {
+			operations.execute();
+		}
+
+	}
+
+	/**
+	 * Metodo que oculta o vuelve a mostrar las participaciones de una película eliminada o recuperada
+	 *
+	 * @param movieId identificador de la película
+	 * @param deleted instante de la eliminación o null si la película se ha recuperado
+	 */
+	public void hide(String movieId, Instant deleted) {
+
+		Update update = deleted != null ? Update.update("deleted", deleted) : new Update().unset("deleted");
+
+		mongo.updateMulti(Query.query(Criteria.where("movie.id").is(movieId)), update, Credit.class);
+
+	}
+
+	/**
+	 * Metodo que elimina las participaciones de varias películas purgadas
+	 *
+	 * @param movieIds identificadores de las películas
+	 * @return número de participaciones eliminadas
+	 */
+	public long removeAll(List<String> movieIds) {
+		return mongo.remove(Query.query(Criteria.where("movie.id").in(movieIds)), Credit.class).getDeletedCount();
+	}
+
+	/**
+	 * Metodo que obtiene la consulta de una participación a partir de su relación con la película
+	 *
+	 * @param movieId    identificador de la película
+	 * @param type       reparto o equipo
+	 * @param relationId identificador de la relación
+	 * @return consulta de la participación
+	 */
+	private Query relation(String movieId, CreditType type, Integer relationId) {
+		return Query.query(Criteria.where("movie.id").is(movieId).and("type").is(type).and("relationId").is(relationId));
+	}
+
+	/**
+	 * Metodo que obtiene la actualización que escribe la participación de un actor
+	 *
+	 * @param movie película con su identificador y título
+	 * @param cast  actor del reparto
+	 * @return actualización de la participación
+	 */
+	private Update update(Movie movie, Cast cast) {
+		return update(movie, cast.getId(), cast.getRelationId()).set("character", cast.getCharacter());
+	}
+
+	/**
+	 * Metodo que obtiene la actualización que escribe la participación de un trabajador
+	 *
+	 * @param movie película con su identificador y título
+	 * @param crew  trabajador del equipo
+	 * @return actualización de la participación
+	 */
+	private Update update(Movie movie, Crew crew) {
+		return update(movie, crew.getId(), crew.getRelationId()).set("job", crew.getJob());
+	}
+
+	/**
+	 * Metodo que obtiene la actualización común a las participaciones en el reparto y el equipo
+	 *
+	 * @param movie      película con su identificador y título
+	 * @param person     identificador de la persona
+	 * @param relationId identificador de la relación
+	 * @return actualización de la participación
+	 */
+	private Update update(Movie movie, String person, Integer relationId) {
+
+		Update update = new Update()
+				.set("person", person)
+				.set("movie", new Movie().setId(movie.getId()).setTitle(movie.getTitle()))
+				.set("relationId", relationId);
+
+		return movie.getDeleted() != null ? update.set("deleted", movie.getDeleted()) : update;
+
+	}
+
+}
\ No newline at end of file
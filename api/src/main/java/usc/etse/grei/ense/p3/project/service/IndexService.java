@@ -0,0 +1,206 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.IndexReport;
+import usc.etse.grei.ense.p3.project.model.Result;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio que implementa la creación y supervisión de los índices de la base de datos
+ */
+@Service
+public class IndexService {
+
+	private static final Logger logger = LoggerFactory.getLogger(IndexService.class);
+
+	private final MongoTemplate mongo;
+	private final boolean strict;
+	private final Map<String, List<IndexDefinition>> indexes;
+	private final List<Document> queryShapes;
+
+	@Autowired
+	public IndexService(MongoTemplate mongo, @Value("${api.index.strict:false}") boolean strict) {
+		this.mongo = mongo;
+		this.strict = strict;
+		this.indexes = new LinkedHashMap<>();
+		this.queryShapes = new ArrayList<>();
+
+		indexes.put("movies", List.of(
+				new Index().on("genres", Sort.Direction.ASC).named("genres"),
+				new Index().on("keywords", Sort.Direction.ASC).named("keywords"),
+				new Index().on("cast._id", Sort.Direction.ASC).named("cast_id"),
+				new Index().on("crew._id", Sort.Direction.ASC).named("crew_id"),
+				new Index().on("title", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("title_id"),
+				new Index().on("title", Sort.Direction.ASC).unique().collation(Collation.of("en").strength(Collation.ComparisonLevel.primary())).named("title_unique"),
+				new Index().on("releaseDate", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("releaseDate_id"),
+				new Index().on("deleted", Sort.Direction.ASC).sparse().named("deleted"),
+				new TextIndexDefinition.TextIndexDefinitionBuilder()
+						.onField("title", 10F)
+						.onField("keywords", 5F)
+						.onField("tagline", 3F)
+						.onField("overview")
+						.named("text")
+						.build()
+		));
+
+		indexes.put("assessments", List.of(
+				new Index().on("movie._id", Sort.Direction.ASC).named("movie_id"),
+				new Index().on("user._id", Sort.Direction.ASC).on("movie._id", Sort.Direction.ASC).unique().named("user_id_movie_id")
+		));
+
+		indexes.put("friendships", List.of(
+				new Index().on("user", Sort.Direction.ASC).on("friendEmail", Sort.Direction.ASC).unique().named("user_friendEmail"),
+				new Index().on("friendEmail", Sort.Direction.ASC).named("friendEmail")
+		));
+
+		indexes.put("credits", List.of(
+				new Index().on("movie._id", Sort.Direction.ASC).on("type", Sort.Direction.ASC).on("relationId", Sort.Direction.ASC).unique().named("movie_id_type_relationId"),
+				new Index().on("person", Sort.Direction.ASC).on("movie.title", Sort.Direction.ASC).named("person_movie_title")
+		));
+
+		indexes.put("persons", List.of(
+				new Index().on("name", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("name_id")
+		));
+
+		indexes.put("jobs", List.of(
+				new Index().on("status", Sort.Direction.ASC).on("created", Sort.Direction.ASC).named("status_created"),
+				new Index().on("status", Sort.Direction.ASC).on("lease", Sort.Direction.ASC).named("status_lease")
+		));
+
+		// Formas de consulta generadas por MovieService.get que no pueden recorrer la colección completa
+		queryShapes.add(new Document("filter", new Document("genres", new Document("$in", List.of("")))));
+		queryShapes.add(new Document("filter", new Document("keywords", new Document("$in", List.of("")))));
+		queryShapes.add(new Document("filter", new Document("cast._id", new Document("$in", List.of("")))));
+		queryShapes.add(new Document("filter", new Document("crew._id", new Document("$in", List.of("")))));
+		queryShapes.add(new Document("filter", new Document()).append("sort", new Document("title", 1)));
+		queryShapes.add(new Document("filter", new Document()).append("sort", new Document("releaseDate", 1)));
+	}
+
+	/**
+	 * Metodo que crea los índices declarados al arrancar la aplicación
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void createIndexes() {
+
+		if (strict) {
+
+			ensureIndexes();
+			verifyQueryShapes();
+
+		} else {
+
+			CompletableFuture.runAsync(this::ensureIndexes);
+
+		}
+
+	}
+
+	/**
+	 * Metodo que genera un informe de los índices ausentes, sin uso o no declarados
+	 *
+	 * @return resultado del informe
+	 */
+	public Result<List<IndexReport>> report() {
+
+		List<IndexReport> reports = new ArrayList<>();
+
+		for (Map.Entry<String, List<IndexDefinition>> entry : indexes.entrySet()) {
+
+			String collection = entry.getKey();
+
+			Set<String> declared = entry.getValue().stream().map(index -> index.getIndexOptions().getString("name")).collect(Collectors.toSet());
+			Set<String> existing = mongo.indexOps(collection).getIndexInfo().stream().map(IndexInfo::getName).collect(Collectors.toSet());
+
+			List<String> missing = declared.stream().filter(name -> !existing.contains(name)).sorted().toList();
+			List<String> undeclared = existing.stream().filter(name -> !declared.contains(name) && !name.equals("_id_")).sorted().toList();
+			List<String> unused = new ArrayList<>();
+
+			for (Document stats : mongo.getCollection(collection).aggregate(List.of(new Document("$indexStats", new Document())))) {
+
+				Document accesses = stats.get("accesses", Document.class);
+
+				if (accesses != null && ((Number) accesses.get("ops")).longValue() == 0) {
+					unused.add(stats.getString("name"));
+				}
+
+			}
+
+			Collections.sort(unused);
+
+			reports.add(new IndexReport(collection, missing, unused, undeclared));
+
+		}
+
+		return new Result<>(reports, false, "Indexes report", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que crea los índices declarados que no existen en la base de datos
+	 */
+	private void ensureIndexes() {
+
+		for (Map.Entry<String, List<IndexDefinition>> entry : indexes.entrySet()) {
+
+			for (IndexDefinition index : entry.getValue()) {
+
+				try {
+
+					mongo.indexOps(entry.getKey()).ensureIndex(index);
+
+				} catch (Exception e) {
+
+					logger.warn("Index {} on {} could not be created: {}", index.getIndexOptions().getString("name"), entry.getKey(), e.getLocalizedMessage());
+
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Metodo que comprueba que ninguna forma de consulta de películas necesita recorrer la colección completa
+	 *
+	 * @throws IllegalStateException si alguna forma de consulta no dispone de índice
+	 */
+	private void verifyQueryShapes() {
+
+		for (Document shape : queryShapes) {
+
+			Document find = new Document("find", "movies").append("filter", shape.get("filter"));
+
+			if (shape.containsKey("sort")) {
+				find.append("sort", shape.get("sort"));
+			}
+
+			Document explain = mongo.getDb().runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+			Document plan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+			if (plan.toJson().contains("COLLSCAN")) {
+				throw new IllegalStateException("Query shape " + shape.toJson() + " on movies requires a collection scan");
+			}
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,329 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Servicio que implementa la propagación de cambios a otros documentos, de forma inmediata o mediante trabajos persistentes
+ */
+@Service
+public class JobService {
+
+	private static final Logger logger = LoggerFactory.getLogger(JobService.class);
+
+	private final MongoTemplate mongo;
+	private final RatingService ratings;
+	private final MovieCache cache;
+	private final MeterRegistry registry;
+	private final boolean async;
+	private final int batchSize;
+	private final int jobsPerPoll;
+	private final Duration lease;
+	private final String owner;
+
+	@Autowired
+	public JobService(MongoTemplate mongo, RatingService ratings, MovieCache cache, MeterRegistry registry, @Value("${api.jobs.async:false}") boolean async, @Value("${api.jobs.batch:1000}") int batchSize, @Value("${api.jobs.poll:10}") int jobsPerPoll, @Value("${api.jobs.lease:5m}") Duration lease) {
+		this.mongo = mongo;
+		this.ratings = ratings;
+		this.cache = cache;
+		this.registry = registry;
+		this.async = async;
+		this.batchSize = batchSize;
+		this.jobsPerPoll = jobsPerPoll;
+		this.lease = lease;
+		this.owner = UUID.randomUUID().toString();
+	}
+
+	/**
+	 * Metodo que propaga un cambio, ejecutándolo inmediatamente o registrando un trabajo pendiente
+	 *
+	 * @param type   tipo de propagación
+	 * @param target identificador del documento modificado
+	 * @param value  nuevo valor propagado
+	 * @return identificador del trabajo registrado o null si la propagación ya se ha completado
+	 */
+	public String submit(JobType type, String target, String value) {
+
+		if (!async) {
+			execute(type, target, value, () -> {});
+			return null;
+		}
+
+		return mongo.insert(new Job(type, target, value)).getId();
+
+	}
+
+	/**
+	 * Metodo que obtiene el estado de un trabajo
+	 *
+	 * @param id identificador del trabajo
+	 * @return resultado de la búsqueda
+	 */
+	public Result<Job> get(String id) {
+
+		Job job = mongo.findById(id, Job.class);
+
+		if (job == null) {
+			return new Result<>(null, false, "No job", 0, Result.Code.NOT_FOUND);
+		}
+
+		return new Result<>(job, false, "Job data", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que devuelve a la cola los trabajos interrumpidos por una parada de la aplicación. Solo se recuperan los
+	 * trabajos cuya reserva ha caducado, ya que el resto pertenecen a otras instancias que siguen en ejecución
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void recover() {
+
+		try {
+
+			mongo.updateMulti(Query.query(expired()), new Update().set("status", JobStatus.PENDING).unset("owner").unset("lease"), Job.class);
+
+		} catch (Exception e) {
+
+			logger.warn("Interrupted jobs could not be recovered: {}", e.getLocalizedMessage());
+
+		}
+
+	}
+
+	/**
+	 * Metodo que ejecuta periódicamente los trabajos pendientes en orden de creación. Cada ejecución procesa como mucho
+	 * un número fijo de trabajos para no retener el planificador mientras haya trabajos en cola
+	 */
+	@Scheduled(fixedDelayString = "${api.jobs.delay:1000}")
+	public void poll() {
+
+		Job job;
+
+		for (int i = 0; i < jobsPerPoll && (job = claim()) != null; i++) {
+
+			String id = job.getId();
+			Update update = new Update().set("finished", Instant.now()).unset("lease");
+
+			try {
+
+				update.set("modified", execute(job.getType(), job.getTarget(), job.getValue(), () -> renew(id))).set("status", JobStatus.DONE);
+
+			} catch (Exception e) {
+
+				logger.warn("Job {} failed: {}", job.getId(), e.getLocalizedMessage());
+				update.set("error", e.getLocalizedMessage()).set("status", JobStatus.FAILED);
+
+			}
+
+			mongo.updateFirst(owned(id), update, Job.class);
+
+		}
+
+	}
+
+	/**
+	 * Metodo que reserva de forma atómica el trabajo pendiente más antiguo, o un trabajo en ejecución cuya reserva ha
+	 * caducado porque la instancia que lo ejecutaba se ha detenido
+	 *
+	 * @return trabajo reservado o null si no hay trabajos pendientes
+	 */
+	private Job claim() {
+
+		Query query = Query.query(new Criteria().orOperator(Criteria.where("status").is(JobStatus.PENDING), expired())).with(Sort.by("created"));
+
+		Update update = new Update().set("status", JobStatus.RUNNING).set("owner", owner).set("lease", Instant.now().plus(lease));
+
+		return mongo.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Job.class);
+
+	}
+
+	/**
+	 * Metodo que renueva la reserva de un trabajo mientras esta instancia lo sigue ejecutando
+	 *
+	 * @param id identificador del trabajo
+	 */
+	private void renew(String id) {
+
+		if (mongo.updateFirst(owned(id), Update.update("lease", Instant.now().plus(lease)), Job.class).getModifiedCount() == 0) {
+			logger.warn("Job {} lease could not be renewed", id);
+		}
+
+	}
+
+	/**
+	 * Metodo que obtiene la consulta de un trabajo en ejecución reservado por esta instancia
+	 *
+	 * @param id identificador del trabajo
+	 * @return consulta del trabajo
+	 */
+	private Query owned(String id) {
+		return Query.query(Criteria.where("id").is(id).and("status").is(JobStatus.RUNNING).and("owner").is(owner));
+	}
+
+	/**
+	 * Metodo que obtiene el criterio de los trabajos en ejecución cuya reserva ha caducado o que no tienen reserva
+	 *
+	 * @return criterio de los trabajos abandonados
+	 */
+	private Criteria expired() {
+		return Criteria.where("status").is(JobStatus.RUNNING).orOperator(Criteria.where("lease").lt(Instant.now()), Criteria.where("lease").exists(false));
+	}
+
+	/**
+	 * Metodo que ejecuta una propagación con una única actualización múltiple por colección afectada, o una eliminación
+	 * en cascada por lotes
+	 *
+	 * @param type      tipo de propagación
+	 * @param target    identificador del documento modificado
+	 * @param value     nuevo valor propagado
+	 * @param heartbeat acción que se ejecuta tras cada lote para renovar la reserva del trabajo
+	 * @return número de documentos modificados
+	 */
+	private long execute(JobType type, String target, String value, Runnable heartbeat) {
+
+		Timer.Sample sample = Timer.start(registry);
+
+		try {
+
+			long modified = switch (type) {
+				case MOVIE_TITLE -> mongo.updateMulti(
+						Query.query(Criteria.where("movie.id").is(target)),
+						Update.update("movie.title", value).inc("version", 1),
+						Assessment.class
+				).getModifiedCount() + mongo.updateMulti(
+						Query.query(Criteria.where("movie.id").is(target)),
+						Update.update("movie.title", value),
+						Credit.class
+				).getModifiedCount();
+				case USER_NAME -> mongo.updateMulti(
+						Query.query(Criteria.where("user.email").is(target)),
+						Update.update("user.name", value).inc("version", 1),
+						Assessment.class
+				).getModifiedCount() + mongo.updateMulti(
+						Query.query(Criteria.where("friendEmail").is(target)),
+						Update.update("friendName", value),
+						Friendship.class
+				).getModifiedCount();
+				case USER_DELETE -> deleteAssessments(Criteria.where("user.email").is(target), heartbeat);
+				case PERSON_NAME -> renamePerson("cast", target, value, heartbeat) + renamePerson("crew", target, value, heartbeat);
+			};
+
+			registry.counter("cascade.documents", "type", type.name()).increment(modified);
+
+			return modified;
+
+		} finally {
+
+			sample.stop(registry.timer("cascade.duration", "type", type.name()));
+
+		}
+
+	}
+
+	/**
+	 * Metodo que propaga por lotes el nuevo nombre de una persona a su copia embebida en el reparto o el equipo de las
+	 * películas, con una única actualización múltiple con filtros de array por lote
+	 *
+	 * @param array     reparto (cast) o equipo (crew)
+	 * @param target    identificador de la persona
+	 * @param value     nuevo nombre de la persona
+	 * @param heartbeat acción que se ejecuta tras cada lote
+	 * @return número de películas modificadas
+	 */
+	private long renamePerson(String array, String target, String value, Runnable heartbeat) {
+
+		Object person = ObjectId.isValid(target) ? new ObjectId(target) : target;
+
+		Query query = Query.query(Criteria.where(array).elemMatch(Criteria.where("_id").is(person).and("name").ne(value))).limit(batchSize);
+		query.fields().include("id");
+
+		Update update = new Update().set(array + ".$[p].name", value).inc("version", 1).filterArray(Criteria.where("p._id").is(person));
+
+		long modified = 0;
+		List<String> batch;
+
+		while (!(batch = mongo.find(query, Movie.class).stream().map(Movie::getId).toList()).isEmpty()) {
+
+			long batchModified = mongo.updateMulti(Query.query(Criteria.where("id").in(batch)), update, Movie.class).getModifiedCount();
+
+			batch.forEach(cache::invalidate);
+			registry.counter("cascade.batches", "type", JobType.PERSON_NAME.name()).increment();
+			heartbeat.run();
+
+			if (batchModified == 0) {
+				break;
+			}
+
+			modified += batchModified;
+
+		}
+
+		return modified;
+
+	}
+
+	/**
+	 * Metodo que elimina por lotes los comentarios que cumplen un criterio, sin cargar más de un lote en memoria, y
+	 * descuenta de los agregados de cada película solo las valoraciones de los comentarios que se han eliminado
+	 * realmente, ya que otra solicitud puede haber eliminado alguno entre la lectura y el borrado
+	 *
+	 * @param criteria  criterio de los comentarios eliminados
+	 * @param heartbeat acción que se ejecuta tras cada lote
+	 * @return número de comentarios eliminados
+	 */
+	private long deleteAssessments(Criteria criteria, Runnable heartbeat) {
+
+		Query query = Query.query(criteria).limit(batchSize);
+		query.fields().include("movie.id", "rating");
+
+		long deleted = 0;
+		List<Assessment> batch;
+
+		while (!(batch = mongo.find(query, Assessment.class)).isEmpty()) {
+
+			List<Assessment> removed = new ArrayList<>(batch.size());
+
+			for (Assessment assessment : batch) {
+
+				Assessment removedAssessment = mongo.findAndRemove(Query.query(Criteria.where("id").is(assessment.getId())), Assessment.class);
+
+				if (removedAssessment != null) {
+					removed.add(removedAssessment);
+				}
+
+			}
+
+			deleted += removed.size();
+
+			ratings.removeAll(removed);
+			heartbeat.run();
+
+		}
+
+		return deleted;
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.Assessment;
+import usc.etse.grei.ense.p3.project.model.Credit;
+import usc.etse.grei.ense.p3.project.model.Friendship;
+import usc.etse.grei.ense.p3.project.model.Movie;
+import usc.etse.grei.ense.p3.project.model.User;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Servicio que adapta los documentos existentes a los cambios del modelo al arrancar la aplicación
+ */
+@Service
+public class MigrationService {
+
+	private static final Logger logger = LoggerFactory.getLogger(MigrationService.class);
+	private static final String MIGRATIONS = "migrations";
+
+	private final MongoTemplate mongo;
+	private final CreditService credits;
+	private final int batchSize;
+
+	@Autowired
+	public MigrationService(MongoTemplate mongo, CreditService credits, @Value("${api.migration.batch:1000}") int batchSize) {
+		this.mongo = mongo;
+		this.credits = credits;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Metodo que ejecuta las migraciones pendientes, que no modifican los documentos ya migrados
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void migrate() {
+
+		try {
+
+			initializeVersions();
+			migrateFriendships();
+			migrateCredits();
+
+		} catch (Exception e) {
+
+			logger.warn("Documents could not be migrated: {}", e.getLocalizedMessage());
+
+		}
+
+	}
+
+	/**
+	 * Metodo que asigna la versión inicial a los documentos creados antes de que se versionasen
+	 */
+	private void initializeVersions() {
+
+		for (Class<?> type : List.of(Movie.class, User.class, Assessment.class)) {
+
+			UpdateResult result = mongo.updateMulti(Query.query(Criteria.where("version").exists(false)), Update.update("version", 0L), type);
+
+			if (result.getModifiedCount() > 0) {
+				logger.info("Initialized the version of {} documents in {}", result.getModifiedCount(), mongo.getCollectionName(type));
+			}
+
+		}
+
+	}
+
+	/**
+	 * Metodo que traslada las listas de amigos embebidas en los usuarios a la colección de amistades, por lotes y sin
+	 * sobrescribir las relaciones que ya existan, eliminando después la lista de cada usuario migrado
+	 */
+	private void migrateFriendships() {
+
+		Query query = Query.query(Criteria.where("friends").exists(true));
+		query.fields().include("friends");
+
+		List<Object> batch = new ArrayList<>(batchSize);
+		BulkOperations operations = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Friendship.class);
+		int relations = 0;
+		long migrated = 0;
+
+		for (Document user : mongo.getCollection(mongo.getCollectionName(User.class)).find(query.getQueryObject()).projection(query.getFieldsObject()).batchSize(batchSize)) {
+
+			for (Document friend : user.getList("friends", Document.class, List.of())) {
+
+				Update update = new Update();
+
+				friend.forEach((key, value) -> {
+					if (!key.equals("friendEmail")) {
+						update.setOnInsert(key, value);
+					}
+				});
+
+				operations.upsert(Query.query(Criteria.where("user").is(user.get("_id")).and("friendEmail").is(friend.get("friendEmail"))), update);
+				relations++;
+
+			}
+
+			batch.add(user.get("_id"));
+
+			if (batch.size() >= batchSize) {
+				migrated += flush(relations > 0 ? operations : null, batch);
+				operations = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Friendship.class);
+				relations = 0;
+			}
+
+		}
+
+		migrated += flush(relations > 0 ? operations : null, batch);
+
+		if (migrated > 0) {
+			logger.info("Migrated the friends of {} users to {}", migrated, mongo.getCollectionName(Friendship.class));
+		}
+
+	}
+
+	/**
+	 * Metodo que construye el índice inverso de participaciones a partir del reparto y el equipo de las películas
+	 * existentes, por lotes y en orden de identificador. Tras cada lote se registra la última película indexada, de modo
+	 * que una migración interrumpida continúa desde ese punto, y al terminar se registra su finalización. Las películas
+	 * creadas mientras tanto ya registran sus participaciones, y escribirlas de nuevo no las duplica
+	 */
+	private void migrateCredits() {
+
+		Document progress = mongo.findById("credits", Document.class, MIGRATIONS);
+
+		if (progress != null && progress.getBoolean("done", false)) {
+			return;
+		}
+
+		Criteria criteria = new Criteria().orOperator(Criteria.where("cast").exists(true), Criteria.where("crew").exists(true));
+
+		if (progress != null && progress.get("last") != null) {
+			criteria = new Criteria().andOperator(criteria, Criteria.where("id").gt(progress.getString("last")));
+		}
+
+		Query query = Query.query(criteria).with(Sort.by("id")).cursorBatchSize(batchSize);
+		query.fields().include("title", "cast", "crew", "deleted");
+
+		List<Movie> batch = new ArrayList<>(batchSize);
+		long migrated = 0;
+
+		try (Stream<Movie> stream = mongo.stream(query, Movie.class)) {
+
+			Iterator<Movie> movies = stream.iterator();
+
+			while (movies.hasNext()) {
+
+				batch.add(movies.next());
+
+				if (batch.size() >= batchSize) {
+					migrated += flush(batch);
+				}
+
+			}
+
+		}
+
+		migrated += flush(batch);
+
+		mongo.upsert(Query.query(Criteria.where("_id").is("credits")), Update.update("done", true), MIGRATIONS);
+
+		if (migrated > 0) {
+			logger.info("Indexed the credits of {} movies in {}", migrated, mongo.getCollectionName(Credit.class));
+		}
+
+	}
+
+	/**
+	 * Metodo que escribe las participaciones de un lote de películas y registra la última película indexada
+	 *
+	 * @param batch películas del lote, en orden de identificador
+	 * @return número de películas indexadas
+	 */
+	private long flush(List<Movie> batch) {
+
+		if (batch.isEmpty()) {
+			return 0;
+		}
+
+		credits.putAll(batch);
+
+		mongo.upsert(Query.query(Criteria.where("_id").is("credits")), Update.update("last", batch.get(batch.size() - 1).getId()), MIGRATIONS);
+
+		long indexed = batch.size();
+
+		batch.clear();
+
+		return indexed;
+
+	}
+
+	/**
+	 * Metodo que escribe las relaciones de amistad de un lote de usuarios y elimina después su lista de amigos embebida
+	 *
+	 * @param operations inserciones pendientes de las relaciones del lote o null si no contiene ninguna
+	 * @param batch      identificadores de los usuarios del lote
+	 * @return número de usuarios migrados
+	 */
+	private long flush(BulkOperations operations, List<Object> batch) {
+
+		if (batch.isEmpty()) {
+			return 0;
+		}
+
+		if (operations != null) {
+			operations.execute();
+		}
+
+		UpdateResult result = mongo.updateMulti(Query.query(Criteria.where("_id").in(batch)), new Update().unset("friends").inc("version", 1), User.class);
+
+		batch.clear();
+
+		return result.getModifiedCount();
+
+	}
+
+}
\ No newline at end of file
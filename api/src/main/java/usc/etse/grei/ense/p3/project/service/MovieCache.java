@@ -0,0 +1,82 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.Movie;
+import usc.etse.grei.ense.p3.project.repository.MovieRepository;
+
+/**
+ * Servicio que implementa la caché de lectura de películas individuales
+ */
+@Service
+public class MovieCache {
+
+	private final LoadingCache<String, Movie> cache;
+	private final ObjectMapper mapper;
+
+	@Autowired
+	public MovieCache(MovieRepository movies, ObjectMapper mapper, MeterRegistry registry, @Value("${api.cache.movies.weight:67108864}") long maximumWeight) {
+		this.mapper = mapper;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(maximumWeight)
+				.weigher((String id, Movie movie) -> weigh(movie))
+				.recordStats()
+				.build(id -> movies.findById(id).filter(movie -> movie.getDeleted() == null).orElse(null));
+
+		CaffeineCacheMetrics.monitor(registry, cache, "movies");
+	}
+
+	/**
+	 * Metodo que obtiene una película de la caché, cargándola de la base de datos si no está presente
+	 *
+	 * @param id identificador de la película
+	 * @return película o null si no existe
+	 */
+	public Movie get(String id) {
+		return cache.get(id);
+	}
+
+	/**
+	 * Metodo que elimina una película de la caché tras su modificación
+	 *
+	 * @param id identificador de la película
+	 */
+	public void invalidate(String id) {
+		cache.invalidate(id);
+	}
+
+	/**
+	 * Metodo que vacía la caché completa
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Metodo que calcula el peso de una película como el tamaño de su representación serializada
+	 *
+	 * @param movie película
+	 * @return tamaño en bytes
+	 */
+	private int weigh(Movie movie) {
+
+		try {
+
+			return mapper.writeValueAsBytes(movie).length;
+
+		} catch (JsonProcessingException e) {
+
+			return 1;
+
+		}
+
+	}
+
+}
\ No newline at end of file
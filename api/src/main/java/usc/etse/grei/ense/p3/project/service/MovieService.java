@@ -1,25 +1,48 @@
 package usc.etse.grei.ense.p3.project.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.*;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.Date;
 import usc.etse.grei.ense.p3.project.model.*;
-import usc.etse.grei.ense.p3.project.repository.AssessmentRepository;
 import usc.etse.grei.ense.p3.project.repository.MovieRepository;
 import usc.etse.grei.ense.p3.project.repository.PersonRepository;
+import usc.etse.grei.ense.p3.project.util.CursorUtil;
+import usc.etse.grei.ense.p3.project.util.PageUtil;
 import usc.etse.grei.ense.p3.project.util.PatchUtil;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio que implementa la lógica de negocio para películas
@@ -27,21 +50,46 @@ import java.util.stream.Collectors;
 @Service
 public class MovieService {
 
+	private static final int DUPLICATE_KEY = 11000;
+
 	private final MovieRepository movies;
+	private final MovieCache cache;
 	private final MongoTemplate mongo;
 	private final PatchUtil patchUtil;
-	private final AssessmentRepository assessments;
+	private final PageUtil pageUtil;
+	private final JobService jobs;
+	private final SuggestService suggest;
+	private final CreditService credits;
 	private final PersonRepository persons;
 	private final Validator validator;
+	private final int exportBatchSize;
+	private final int importBatchSize;
+	private final int importErrors;
+	private final ObjectMapper mapper;
+	private final Set<String> properties;
+	private final Duration restoreWindow;
 
 	@Autowired
-	public MovieService(MovieRepository movies, MongoTemplate mongo, PatchUtil patchUtil, AssessmentRepository assessments, PersonRepository persons, Validator validator) {
+	public MovieService(MovieRepository movies, MovieCache cache, MongoTemplate mongo, PatchUtil patchUtil, PageUtil pageUtil, JobService jobs, SuggestService suggest, CreditService credits, PersonRepository persons, ObjectMapper mapper, Validator validator, @Value("${api.export.batch:1000}") int exportBatchSize, @Value("${api.import.batch:1000}") int importBatchSize, @Value("${api.import.errors:1000}") int importErrors, @Value("${api.reaper.window:7d}") Duration restoreWindow) {
 		this.movies = movies;
+		this.cache = cache;
 		this.mongo = mongo;
 		this.patchUtil = patchUtil;
-		this.assessments = assessments;
+		this.pageUtil = pageUtil;
+		this.jobs = jobs;
+		this.suggest = suggest;
+		this.credits = credits;
 		this.persons = persons;
 		this.validator = validator;
+		this.exportBatchSize = exportBatchSize;
+		this.importBatchSize = importBatchSize;
+		this.importErrors = importErrors;
+		this.mapper = mapper;
+		this.properties = new LinkedHashSet<>();
+		this.restoreWindow = restoreWindow;
+
+		mongo.getConverter().getMappingContext().getRequiredPersistentEntity(Movie.class)
+				.doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> properties.add(property.getName()));
 	}
 
 	/**
@@ -53,13 +101,240 @@ public class MovieService {
 	 * @param filter   criterio de filtrado por película
 	 * @param castList criterio de filtrado por reparto
 	 * @param crewList criterio de filtrado por equipo de trabajo
+	 * @param q        texto de búsqueda sobre título, resumen, eslogan y palabras clave (ordena por relevancia)
+	 * @param count    modo de recuento del total de películas
 	 * @return resultado de la búsqueda
 	 */
-	public Result<Page<Movie>> get(int page, int size, Sort sort, Example<Movie> filter, List<String> genres, List<String> keywords, List<Cast> castList, List<Crew> crewList) {
+	public Result<Page<Movie>> get(int page, int size, Sort sort, Example<Movie> filter, List<String> genres, List<String> keywords, List<Cast> castList, List<Crew> crewList, String q, CountMode count) {
 
 		Pageable request = PageRequest.of(page, size, sort);
 
-		Criteria criteria = Criteria.byExample(filter);
+		Criteria criteria = getCriteria(filter, genres, keywords, castList, crewList);
+
+		Query query = q.isBlank() ? Query.query(criteria) : TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(q)).sortByScore().addCriteria(criteria);
+
+		Page<Movie> pageResult = pageUtil.find(query, request, Movie.class, count, "_id", "title", "overview", "genres", "releaseDate", "resources", "ratings");
+
+		return new Result<>(pageResult, false, "Movies found", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que obtiene una ventana de películas utilizando paginación por cursor
+	 *
+	 * @param cursor   cursor de continuación (vacío para la primera ventana)
+	 * @param size     número de películas por ventana
+	 * @param sort     criterio de ordenación
+	 * @param filter   criterio de filtrado por película
+	 * @param castList criterio de filtrado por reparto
+	 * @param crewList criterio de filtrado por equipo de trabajo
+	 * @return resultado de la búsqueda
+	 */
+	public Result<Window<Movie>> scroll(String cursor, int size, Sort sort, Example<Movie> filter, List<String> genres, List<String> keywords, List<Cast> castList, List<Crew> crewList) {
+
+		KeysetScrollPosition position = CursorUtil.decode(cursor, sort);
+
+		if (position == null) {
+			return new Result<>(null, true, "Invalid cursor", 0, Result.Code.BAD_REQUEST);
+		}
+
+		Criteria criteria = getCriteria(filter, genres, keywords, castList, crewList);
+
+		Query query = Query.query(criteria).with(sort).with(position).limit(size);
+		query.fields().include("_id", "title", "overview", "genres", "releaseDate", "resources", "ratings");
+
+		Window<Movie> result = mongo.scroll(query, Movie.class);
+
+		return new Result<>(result, false, "Movies found", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que obtiene el cursor opaco que continúa una ventana de películas a partir de una posición
+	 *
+	 * @param position posición del último elemento devuelto
+	 * @param sort     criterio de ordenación utilizado
+	 * @return cursor codificado
+	 */
+	public String cursor(ScrollPosition position, Sort sort) {
+		return CursorUtil.encode(position, sort, mongo.getConverter());
+	}
+
+	/**
+	 * Metodo que abre un cursor de la base de datos y obtiene un flujo de películas leído directamente de él. Debe
+	 * llamarse desde la tarea que escribe la respuesta, para no mantener el cursor abierto fuera de ella
+	 *
+	 * @param sort     criterio de ordenación
+	 * @param filter   criterio de filtrado por película
+	 * @param castList criterio de filtrado por reparto
+	 * @param crewList criterio de filtrado por equipo de trabajo
+	 * @param fields   campos incluidos en cada película (todos si está vacía)
+	 * @return resultado de la búsqueda, cuyo flujo debe cerrarse tras su lectura
+	 */
+	public Result<Stream<Movie>> export(Sort sort, Example<Movie> filter, List<String> genres, List<String> keywords, List<Cast> castList, List<Crew> crewList, List<String> fields) {
+
+		Criteria criteria = getCriteria(filter, genres, keywords, castList, crewList);
+
+		Query query = Query.query(criteria).with(sort).cursorBatchSize(exportBatchSize);
+
+		if (!fields.isEmpty()) {
+			query.fields().include(fields.toArray(String[]::new));
+		}
+
+		try {
+
+			return new Result<>(mongo.stream(query, Movie.class), false, "Movies exported", 0, Result.Code.OK);
+
+		} catch (Exception e) {
+
+			return new Result<>(null, true, e.getLocalizedMessage(), 0, Result.Code.BAD_REQUEST);
+
+		}
+
+	}
+
+	/**
+	 * Metodo que convierte y valida una línea de la importación
+	 *
+	 * @param number número de la línea
+	 * @param line   contenido de la línea
+	 * @param report informe en el que se registran los errores
+	 * @return película válida o null si la línea se rechaza
+	 */
+	private Movie parseMovie(long number, String line, ImportReport report) {
+
+		try {
+
+			Movie movie = mapper.readValue(line, Movie.class);
+
+			Set<ConstraintViolation<Movie>> violations = validator.validate(movie, OnCreate.class);
+
+			if (!violations.isEmpty()) {
+				reject(report, number, violations.stream().map(violation -> violation.getPropertyPath() + " " + violation.getMessage()).sorted().collect(Collectors.joining(", ")));
+				return null;
+			}
+
+			Date date = movie.getReleaseDate();
+
+			if (date != null && LocalDate.of(date.getYear(), date.getMonth(), date.getDay()).isAfter(LocalDate.now())) {
+				reject(report, number, "Invalid releaseDate");
+				return null;
+			}
+
+			return movie;
+
+		} catch (JsonProcessingException e) {
+
+			reject(report, number, e.getOriginalMessage());
+
+		} catch (Exception e) {
+
+			reject(report, number, e.getLocalizedMessage());
+
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Metodo que inserta un lote de películas descartando los títulos existentes con una única consulta
+	 *
+	 * @param batch  películas del lote indexadas por número de línea
+	 * @param report informe en el que se registran las inserciones y los errores
+	 */
+	private void insertMovies(Map<Long, Movie> batch, ImportReport report) {
+
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		Query query = Query.query(Criteria.where("title").in(batch.values().stream().map(Movie::getTitle).toList()));
+		query.fields().include("title");
+
+		Set<String> titles = mongo.find(query, Movie.class).stream().map(Movie::getTitle).collect(Collectors.toSet());
+
+		List<Long> numbers = new ArrayList<>();
+		List<Movie> documents = new ArrayList<>();
+
+		batch.forEach((number, movie) -> {
+
+			if (titles.add(movie.getTitle())) {
+				numbers.add(number);
+				documents.add(movie.setId(new ObjectId().toHexString()).setVersion(0L));
+			} else {
+				reject(report, number, "Movie already exists");
+			}
+
+		});
+
+		if (documents.isEmpty()) {
+			return;
+		}
+
+		try {
+
+			BulkWriteResult result = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class).insert(documents).execute();
+
+			report.setInserted(report.getInserted() + result.getInsertedCount());
+
+			credits.putAll(documents);
+
+		} catch (BulkOperationException e) {
+
+			report.setInserted(report.getInserted() + e.getResult().getInsertedCount());
+
+			Set<Integer> failed = new HashSet<>();
+
+			e.getErrors().forEach(error -> {
+				failed.add(error.getIndex());
+				reject(report, numbers.get(error.getIndex()), error.getCode() == DUPLICATE_KEY ? "Movie already exists" : error.getMessage());
+			});
+
+			List<Movie> inserted = new ArrayList<>();
+
+			for (int i = 0; i < documents.size(); i++) {
+				if (!failed.contains(i)) {
+					inserted.add(documents.get(i));
+				}
+			}
+
+			credits.putAll(inserted);
+
+		}
+
+	}
+
+	/**
+	 * Metodo que registra el rechazo de una línea de la importación
+	 *
+	 * @param report  informe de la importación
+	 * @param number  número de la línea
+	 * @param message motivo del rechazo
+	 */
+	private void reject(ImportReport report, long number, String message) {
+
+		report.setRejected(report.getRejected() + 1);
+
+		if (report.getErrors().size() < importErrors) {
+			report.getErrors().add(new ImportError(number, message));
+		}
+
+	}
+
+	/**
+	 * Metodo que construye el criterio de búsqueda de películas a partir de los filtros
+	 *
+	 * @param filter   criterio de filtrado por película
+	 * @param genres   criterio de filtrado por género
+	 * @param keywords criterio de filtrado por palabras clave
+	 * @param castList criterio de filtrado por reparto
+	 * @param crewList criterio de filtrado por equipo de trabajo
+	 * @return criterio de búsqueda
+	 */
+	private Criteria getCriteria(Example<Movie> filter, List<String> genres, List<String> keywords, List<Cast> castList, List<Crew> crewList) {
+
+		Criteria criteria = Criteria.byExample(filter).and("deleted").exists(false);
 
 		if (!genres.isEmpty()) {
 			criteria.and("genres").in(genres);
@@ -109,15 +384,7 @@ public class MovieService {
 
 		}
 
-		Query query = Query.query(criteria).with(request);
-		query.fields().include("_id", "title", "overview", "genres", "releaseDate", "resources");
-
-		List<Movie> result = mongo.find(query, Movie.class);
-		long totalElements = mongo.count(Query.query(criteria), Movie.class);
-
-		Page<Movie> pageResult = new PageImpl<>(result, request, totalElements);
-
-		return new Result<>(pageResult, false, "Movies found", 0, Result.Code.OK);
+		return criteria;
 
 	}
 
@@ -129,7 +396,67 @@ public class MovieService {
 	 */
 	public Result<Movie> get(String id) {
 
-		Movie result = movies.findById(id).orElse(null);
+		Movie result = cache.get(id);
+
+		if (result == null) {
+			return new Result<>(null, false, "No movie", 0, Result.Code.NOT_FOUND);
+		}
+
+		return new Result<>(result, false, "Movie found", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que obtiene una película a partir de su id devolviendo únicamente los campos solicitados y recortando su
+	 * reparto y equipo de trabajo en la propia consulta
+	 *
+	 * @param id        identificador de la película
+	 * @param fields    campos devueltos (todos si está vacía)
+	 * @param castLimit número máximo de miembros del reparto
+	 * @param crewLimit número máximo de miembros del equipo de trabajo
+	 * @param crewJob   trabajo por el que se filtra el equipo de trabajo
+	 * @return resultado de la búsqueda
+	 */
+	public Result<Movie> get(String id, List<String> fields, Integer castLimit, Integer crewLimit, String crewJob) {
+
+		if (fields.isEmpty() && castLimit == null && crewLimit == null && crewJob == null) {
+			return get(id);
+		}
+
+		if ((castLimit != null && castLimit < 0) || (crewLimit != null && crewLimit < 0)) {
+			return new Result<>(null, true, "Invalid limit", 0, Result.Code.BAD_REQUEST);
+		}
+
+		Set<String> included = new LinkedHashSet<>(fields.isEmpty() ? properties : fields);
+
+		if (!properties.containsAll(included)) {
+			return new Result<>(null, true, "Invalid fields", 0, Result.Code.BAD_REQUEST);
+		}
+
+		included.add("version");
+
+		Query query = Query.query(versionCriteria(id, null));
+
+		if (castLimit != null && included.remove("cast")) {
+			query.fields().slice("cast", castLimit);
+		}
+
+		if (crewJob != null && included.remove("crew")) {
+
+			Document crew = new Document("$filter", new Document("input", "$crew")
+					.append("cond", new Document("$eq", List.of("$$this.job", crewJob))));
+
+			query.fields().project(() -> crewLimit != null ? new Document("$slice", List.of(crew, crewLimit)) : crew).as("crew");
+
+		} else if (crewLimit != null && included.remove("crew")) {
+
+			query.fields().slice("crew", crewLimit);
+
+		}
+
+		query.fields().include(included.toArray(String[]::new));
+
+		Movie result = mongo.findOne(query, Movie.class);
 
 		if (result == null) {
 			return new Result<>(null, false, "No movie", 0, Result.Code.NOT_FOUND);
@@ -149,13 +476,6 @@ public class MovieService {
 
 		try {
 
-			Example<Movie> testMovie = Example.of(new Movie().setTitle(movie.getTitle()));
-			Movie result = movies.findOne(testMovie).orElse(null);
-
-			if (result != null) {
-				return new Result<>(null, false, "Movie already exists", 0, Result.Code.CONFLICT);
-			}
-
 			Date date = movie.getReleaseDate();
 
 			if (date != null) {
@@ -170,8 +490,15 @@ public class MovieService {
 
 			movies.insert(movie);
 
+			credits.putAll(List.of(movie));
+			suggest.putMovie(movie);
+
 			return new Result<>(movie, false, "Movie created", 0, Result.Code.CREATED);
 
+		} catch (DuplicateKeyException e) {
+
+			return new Result<>(null, false, "Movie already exists", 0, Result.Code.CONFLICT);
+
 		} catch (Exception e) {
 
 			return new Result<>(null, true, e.getLocalizedMessage(), 0, Result.Code.BAD_REQUEST);
@@ -180,24 +507,91 @@ public class MovieService {
 
 	}
 
+	/**
+	 * Metodo que importa películas desde un flujo con un documento JSON por línea, insertándolas por lotes
+	 *
+	 * @param input flujo de entrada
+	 * @return resultado de la importación con los errores de cada línea rechazada
+	 */
+	public Result<ImportReport> importMovies(InputStream input) {
+
+		long start = System.nanoTime();
+
+		ImportReport report = new ImportReport(0L, 0L, 0L, new ArrayList<>(), 0L, 0.0);
+		Map<Long, Movie> batch = new LinkedHashMap<>();
+		long number = 0;
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+
+				number++;
+
+				if (line.isBlank()) {
+					continue;
+				}
+
+				report.setLines(report.getLines() + 1);
+
+				Movie movie = parseMovie(number, line, report);
+
+				if (movie != null) {
+					batch.put(number, movie);
+				}
+
+				if (batch.size() >= importBatchSize) {
+					insertMovies(batch, report);
+					batch.clear();
+				}
+
+			}
+
+			insertMovies(batch, report);
+
+		} catch (IOException e) {
+
+			reject(report, number, "Upload interrupted: " + e.getLocalizedMessage());
+
+		}
+
+		long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		report.setElapsed(elapsed);
+		report.setThroughput(report.getInserted() * 1000.0 / Math.max(elapsed, 1));
+
+		if (report.getInserted() > 0) {
+			suggest.rebuild();
+		}
+
+		return new Result<>(report, false, "Movies imported", 0, Result.Code.OK);
+
+	}
+
 	/**
 	 * Metodo que modifica la información de una película almacenada
 	 *
 	 * @param id         identificador de la pelicula modificada
 	 * @param operations lista de operaciones de modificación
+	 * @param version    versión esperada de la película o null si no se exige ninguna
 	 * @return resultado de la modificación
 	 */
-	public Result<Movie> update(String id, List<Map<String, Object>> operations) {
+	public Result<Movie> update(String id, List<Map<String, Object>> operations, Long version) {
 
 		try {
 
-			Movie originalMovie = movies.findById(id).orElse(null);
+			Movie originalMovie = movies.findById(id).filter(movie -> movie.getDeleted() == null).orElse(null);
 
 			if (originalMovie == null) {
 				return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
 			}
 
-			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/id") || ((String) op.get("path")).startsWith("/crew") || ((String) op.get("path")).startsWith("/cast")));
+			if (version != null && !version.equals(originalMovie.getVersion())) {
+				return new Result<>(null, true, "Movie version does not match", 0, Result.Code.PRECONDITION_FAILED);
+			}
+
+			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/id") || ((String) op.get("path")).startsWith("/crew") || ((String) op.get("path")).startsWith("/cast") || ((String) op.get("path")).startsWith("/ratings") || op.get("path").equals("/version") || op.get("path").equals("/deleted")));
 
 			Movie filteredMovie = patchUtil.patch(originalMovie, operations);
 
@@ -228,30 +622,40 @@ public class MovieService {
 
 			}
 
-			Movie updatedMovie = movies.save(filteredMovie);
+			// Solo se exige la versión indicada por el cliente, ya que las valoraciones y los cambios de nombre de las
+			// personas también incrementan la versión sin modificar los campos actualizados
+			Query query = Query.query(versionCriteria(id, version));
+			Update update = patchUtil.toUpdate(originalMovie, filteredMovie, operations).inc("version", 1);
 
-			ExampleMatcher matcher = ExampleMatcher.matching();
-			Example<Assessment> filter = Example.of(
-					new Assessment().setMovie(new Movie().setId(updatedMovie.getId())),
-					matcher
-			);
+			Movie updatedMovie = mongo.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Movie.class);
 
-			if (!originalMovie.getTitle().equals(updatedMovie.getTitle())) {
-				assessments.findAll(filter).forEach(assessment -> {
+			if (updatedMovie == null && version != null) {
+				return new Result<>(null, true, "Movie modified concurrently", 0, Result.Code.PRECONDITION_FAILED);
+			}
+
+			if (updatedMovie == null) {
+				return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
+			}
 
-					Movie movie = assessment.getMovie();
+			cache.invalidate(id);
+			suggest.putMovie(updatedMovie);
 
-					movie.setTitle(updatedMovie.getTitle());
+			if (!originalMovie.getTitle().equals(updatedMovie.getTitle())) {
 
-					assessment.setMovie(movie);
+				String job = jobs.submit(JobType.MOVIE_TITLE, updatedMovie.getId(), updatedMovie.getTitle());
 
-					assessments.save(assessment);
+				if (job != null) {
+					return new Result<>(updatedMovie, false, "Movie updated, title propagation pending", 0, Result.Code.ACCEPTED).setJob(job);
+				}
 
-				});
 			}
 
 			return new Result<>(updatedMovie, false, "Movie updated", 0, Result.Code.OK);
 
+		} catch (DuplicateKeyException e) {
+
+			return new Result<>(null, false, "Movie already exists", 0, Result.Code.CONFLICT);
+
 		} catch (Exception e) {
 
 			return new Result<>(null, true, e.getLocalizedMessage(), 0, Result.Code.BAD_REQUEST);
@@ -261,45 +665,65 @@ public class MovieService {
 	}
 
 	/**
-	 * Metodo que elimina una película de la base de datos
+	 * Metodo que marca una película como eliminada, ocultándola de las consultas hasta que sea recuperada o purgada
 	 *
 	 * @param id identificador de la película eliminada
 	 * @return resultado de la eliminación
 	 */
 	public Result<Movie> delete(String id) {
 
-		Movie movie = movies.findById(id).orElse(null);
+		Update update = Update.update("deleted", Instant.now()).inc("version", 1);
+
+		Movie movie = mongo.findAndModify(Query.query(versionCriteria(id, null)), update, FindAndModifyOptions.options().returnNew(true), Movie.class);
 
 		if (movie == null) {
 			return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
 		}
 
-		ExampleMatcher matcher = ExampleMatcher.matching();
-		Example<Assessment> filter = Example.of(
-				new Assessment().setMovie(new Movie().setId(movie.getId())),
-				matcher
-		);
+		cache.invalidate(id);
+		credits.hide(id, movie.getDeleted());
+		suggest.removeMovie(id);
 
-		assessments.deleteAll(assessments.findAll(filter));
+		return new Result<>(movie, false, "Movie deleted", 0, Result.Code.OK);
 
-		movies.delete(movie);
+	}
 
-		return new Result<>(movie, false, "Movie deleted", 0, Result.Code.OK);
+	/**
+	 * Metodo que recupera una película eliminada antes de que termine su plazo de recuperación y sea purgada
+	 *
+	 * @param id identificador de la película eliminada
+	 * @return resultado de la recuperación
+	 */
+	public Result<Movie> restore(String id) {
+
+		Query query = Query.query(Criteria.where("id").is(id).and("deleted").gt(Instant.now().minus(restoreWindow)));
+		Update update = new Update().unset("deleted").inc("version", 1);
+
+		Movie movie = mongo.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Movie.class);
+
+		if (movie == null) {
+			return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
+		}
+
+		cache.invalidate(id);
+		credits.hide(id, null);
+		suggest.putMovie(movie);
+
+		return new Result<>(movie, false, "Movie restored", 0, Result.Code.OK);
 
 	}
 
 	/**
 	 * Metodo que añade un actor al reparto de una película
 	 *
-	 * @param id   identificador de la película
-	 * @param cast actor añadido al reparto de la película
+	 * @param id      identificador de la película
+	 * @param cast    actor añadido al reparto de la película
+	 * @param version versión esperada de la película o null si no se exige ninguna
 	 * @return resultado de la inserción
 	 */
-	public Result<Cast> createCast(String id, Cast cast) {
+	public Result<Cast> createCast(String id, Cast cast, Long version) {
 
-		Movie movie = movies.findById(id).orElse(null);
-
-		if (movie == null) {
+		if (!mongo.exists(Query.query(versionCriteria(id, null)), Movie.class)) {
 			return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
 		}
 
@@ -310,17 +734,30 @@ public class MovieService {
 			return new Result<>(null, true, "Person not found", 0, Result.Code.NOT_FOUND);
 		}
 
+		cast.setId(person.getId());
 		cast.setRelationId(cast.hashCode());
 
-		if (movie.getCast() == null) {
-			movie.setCast(List.of(cast));
-		} else if (movie.getCast().stream().anyMatch(c -> c.getRelationId().equals(cast.getRelationId()))) {
+		Query query = Query.query(versionCriteria(id, version).and("cast.relationId").ne(cast.getRelationId()));
+		query.fields().include("title");
+
+		Movie movie = mongo.findAndModify(query, new Update().push("cast", cast).inc("version", 1), Movie.class);
+
+		if (movie == null) {
+
+			if (!mongo.exists(Query.query(versionCriteria(id, null)), Movie.class)) {
+				return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
+			}
+
+			if (!mongo.exists(Query.query(versionCriteria(id, version)), Movie.class)) {
+				return new Result<>(null, true, "Movie version does not match", 0, Result.Code.PRECONDITION_FAILED);
+			}
+
 			return new Result<>(null, true, "Combination person-character is already in cast", 0, Result.Code.CONFLICT);
-		} else {
-			movie.getCast().add(cast);
+
 		}
 
-		movies.save(movie);
+		cache.invalidate(id);
+		credits.put(movie, cast);
 
 		return new Result<>(cast, false, "Cast added", 0, Result.Code.CREATED);
 
@@ -332,28 +769,32 @@ public class MovieService {
 	 * @param id         identificador de la película
 	 * @param relationId identificador de la relación
 	 * @param operations lista de operaciones de modificación
+	 * @param version    versión esperada de la película o null si no se exige ninguna
 	 * @return resultado de la modificación
 	 */
-	public Result<Cast> updateCast(String id, Integer relationId, List<Map<String, Object>> operations) {
+	public Result<Cast> updateCast(String id, Integer relationId, List<Map<String, Object>> operations, Long version) {
 
 		try {
 
-			Movie movie = movies.findById(id).orElse(null);
+			Query query = Query.query(versionCriteria(id, null));
+			query.fields().elemMatch("cast", Criteria.where("relationId").is(relationId)).include("version", "title");
+
+			Movie movie = mongo.findOne(query, Movie.class);
 
 			if (movie == null) {
 				return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
 			}
 
-			if (movie.getCast() == null) {
-				return new Result<>(null, true, "Cast not found", 0, Result.Code.NOT_FOUND);
+			if (version != null && !version.equals(movie.getVersion())) {
+				return new Result<>(null, true, "Movie version does not match", 0, Result.Code.PRECONDITION_FAILED);
 			}
 
-			Cast cast = movie.getCast().stream().filter(c -> c.getRelationId().equals(relationId)).findFirst().orElse(null);
-
-			if (cast == null) {
+			if (movie.getCast() == null || movie.getCast().isEmpty()) {
 				return new Result<>(null, true, "Cast not found", 0, Result.Code.NOT_FOUND);
 			}
 
+			Cast cast = movie.getCast().get(0);
+
 			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/id") || op.get("path").equals("/relationId") || op.get("path").equals("/name")));
 
 			Cast filteredCast = patchUtil.patch(cast, operations);
@@ -366,14 +807,24 @@ public class MovieService {
 
 			filteredCast.setRelationId(filteredCast.hashCode());
 
-			if (movie.getCast().stream().anyMatch(c -> c.getRelationId().equals(filteredCast.getRelationId()))) {
+			Query update = Query.query(versionCriteria(id, version).andOperator(
+					Criteria.where("cast.relationId").is(relationId),
+					Criteria.where("cast.relationId").ne(filteredCast.getRelationId())
+			));
+
+			UpdateResult result = mongo.updateFirst(update, new Update().set("cast.$[c]", filteredCast).inc("version", 1).filterArray(Criteria.where("c.relationId").is(relationId)), Movie.class);
+
+			if (result.getModifiedCount() == 0) {
+
+				if (!mongo.exists(Query.query(versionCriteria(id, version)), Movie.class)) {
+					return new Result<>(null, true, "Movie version does not match", 0, Result.Code.PRECONDITION_FAILED);
+				}
+
 				return new Result<>(null, true, "Combination person-character is already in cast", 0, Result.Code.CONFLICT);
 			}
 
-			movie.getCast().remove(cast);
-			movie.getCast().add(filteredCast);
-
-			movies.save(movie);
+			cache.invalidate(id);
+			credits.replace(movie, relationId, filteredCast);
 
 			return new Result<>(filteredCast, false, "Cast updated", 0, Result.Code.OK);
 
@@ -390,46 +841,48 @@ public class MovieService {
 	 *
 	 * @param id         identificador de la película
 	 * @param relationId identificador de la relación
+	 * @param version    versión esperada de la película o null si no se exige ninguna
 	 * @return resultado de la eliminación
 	 */
-	public Result<Cast> deleteCast(String id, Integer relationId) {
+	public Result<Cast> deleteCast(String id, Integer relationId, Long version) {
 
-		Movie movie = movies.findById(id).orElse(null);
+		Query query = Query.query(versionCriteria(id, version).and("cast.relationId").is(relationId));
+		query.fields().elemMatch("cast", Criteria.where("relationId").is(relationId));
 
-		if (movie == null) {
-			return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
-		}
+		Movie movie = mongo.findAndModify(query, new Update().pull("cast", new Document("relationId", relationId)).inc("version", 1), Movie.class);
 
-		if (movie.getCast() == null) {
-			return new Result<>(null, true, "Cast not found", 0, Result.Code.NOT_FOUND);
-		}
+		if (movie == null || movie.getCast() == null || movie.getCast().isEmpty()) {
 
-		Cast cast = movie.getCast().stream().filter(c -> c.getRelationId().equals(relationId)).findFirst().orElse(null);
+			if (!mongo.exists(Query.query(versionCriteria(id, null)), Movie.class)) {
+				return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
+			}
+
+			if (!mongo.exists(Query.query(versionCriteria(id, version)), Movie.class)) {
+				return new Result<>(null, true, "Movie version does not match", 0, Result.Code.PRECONDITION_FAILED);
+			}
 
-		if (cast == null) {
 			return new Result<>(null, true, "Cast not found", 0, Result.Code.NOT_FOUND);
-		}
 
-		movie.getCast().remove(cast);
+		}
 
-		movies.save(movie);
+		cache.invalidate(id);
+		credits.remove(id, CreditType.CAST, relationId);
 
-		return new Result<>(cast, false, "Cast removed", 0, Result.Code.OK);
+		return new Result<>(movie.getCast().get(0), false, "Cast removed", 0, Result.Code.OK);
 
 	}
 
 	/**
 	 * Metodo que añade un trabajador al equipo de una película
 	 *
-	 * @param id   identificador de la película
-	 * @param crew trabajador que se añade
+	 * @param id      identificador de la película
+	 * @param crew    trabajador que se añade
+	 * @param version versión esperada de la película o null si no se exige ninguna
 	 * @return resultado de la inserción
 	 */
-	public Result<Crew> createCrew(String id, Crew crew) {
+	public Result<Crew> createCrew(String id, Crew crew, Long version) {
 
-		Movie movie = movies.findById(id).orElse(null);
-
-		if (movie == null) {
+		if (!mongo.exists(Query.query(versionCriteria(id, null)), Movie.class)) {
 			return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
 		}
 
@@ -450,15 +903,27 @@ public class MovieService {
 
 		crew.setRelationId(crew.hashCode());
 
-		if (movie.getCrew() == null) {
-			movie.setCrew(List.of(crew));
-		} else if (movie.getCrew().stream().anyMatch(c -> c.getRelationId().equals(crew.getRelationId()))) {
+		Query query = Query.query(versionCriteria(id, version).and("crew.relationId").ne(crew.getRelationId()));
+		query.fields().include("title");
+
+		Movie movie = mongo.findAndModify(query, new Update().push("crew", crew).inc("version", 1), Movie.class);
+
+		if (movie == null) {
+
+			if (!mongo.exists(Query.query(versionCriteria(id, null)), Movie.class)) {
+				return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
+			}
+
+			if (!mongo.exists(Query.query(versionCriteria(id, version)), Movie.class)) {
+				return new Result<>(null, true, "Movie version does not match", 0, Result.Code.PRECONDITION_FAILED);
+			}
+
 			return new Result<>(null, true, "Combination person-job is already in crew", 0, Result.Code.CONFLICT);
-		} else {
-			movie.getCrew().add(crew);
+
 		}
 
-		movies.save(movie);
+		cache.invalidate(id);
+		credits.put(movie, crew);
 
 		return new Result<>(crew, false, "Crew added", 0, Result.Code.CREATED);
 
@@ -470,28 +935,32 @@ public class MovieService {
 	 * @param id         identificador de la película
 	 * @param relationId identificador de la relación
 	 * @param operations lista de operaciones de modificación
+	 * @param version    versión esperada de la película o null si no se exige ninguna
 	 * @return resultado de la modificación
 	 */
-	public Result<Crew> updateCrew(String id, Integer relationId, List<Map<String, Object>> operations) {
+	public Result<Crew> updateCrew(String id, Integer relationId, List<Map<String, Object>> operations, Long version) {
 
 		try {
 
-			Movie movie = movies.findById(id).orElse(null);
+			Query query = Query.query(versionCriteria(id, null));
+			query.fields().elemMatch("crew", Criteria.where("relationId").is(relationId)).include("version", "title");
+
+			Movie movie = mongo.findOne(query, Movie.class);
 
 			if (movie == null) {
 				return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
 			}
 
-			if (movie.getCrew() == null) {
-				return new Result<>(null, true, "Crew not found", 0, Result.Code.NOT_FOUND);
+			if (version != null && !version.equals(movie.getVersion())) {
+				return new Result<>(null, true, "Movie version does not match", 0, Result.Code.PRECONDITION_FAILED);
 			}
 
-			Crew crew = movie.getCrew().stream().filter(c -> c.getRelationId().equals(relationId)).findFirst().orElse(null);
-
-			if (crew == null) {
+			if (movie.getCrew() == null || movie.getCrew().isEmpty()) {
 				return new Result<>(null, true, "Crew not found", 0, Result.Code.NOT_FOUND);
 			}
 
+			Crew crew = movie.getCrew().get(0);
+
 			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/id") || op.get("path").equals("/relationId") || op.get("path").equals("/name")));
 
 			Crew filteredCrew = patchUtil.patch(crew, operations);
@@ -504,14 +973,24 @@ public class MovieService {
 
 			filteredCrew.setRelationId(filteredCrew.hashCode());
 
-			if (movie.getCrew().stream().anyMatch(c -> c.getRelationId().equals(filteredCrew.getRelationId()))) {
+			Query update = Query.query(versionCriteria(id, version).andOperator(
+					Criteria.where("crew.relationId").is(relationId),
+					Criteria.where("crew.relationId").ne(filteredCrew.getRelationId())
+			));
+
+			UpdateResult result = mongo.updateFirst(update, new Update().set("crew.$[c]", filteredCrew).inc("version", 1).filterArray(Criteria.where("c.relationId").is(relationId)), Movie.class);
+
+			if (result.getModifiedCount() == 0) {
+
+				if (!mongo.exists(Query.query(versionCriteria(id, version)), Movie.class)) {
+					return new Result<>(null, true, "Movie version does not match", 0, Result.Code.PRECONDITION_FAILED);
+				}
+
 				return new Result<>(null, true, "Combination person-job is already in crew", 0, Result.Code.CONFLICT);
 			}
 
-			movie.getCrew().remove(crew);
-			movie.getCrew().add(filteredCrew);
-
-			movies.save(movie);
+			cache.invalidate(id);
+			credits.replace(movie, relationId, filteredCrew);
 
 			return new Result<>(filteredCrew, false, "Crew updated", 0, Result.Code.OK);
 
@@ -528,31 +1007,49 @@ public class MovieService {
 	 *
 	 * @param id         identificador de la película
 	 * @param relationId identificador de la relación
+	 * @param version    versión esperada de la película o null si no se exige ninguna
 	 * @return resultado de la eliminación
 	 */
-	public Result<Crew> deleteCrew(String id, Integer relationId) {
+	public Result<Crew> deleteCrew(String id, Integer relationId, Long version) {
 
-		Movie movie = movies.findById(id).orElse(null);
+		Query query = Query.query(versionCriteria(id, version).and("crew.relationId").is(relationId));
+		query.fields().elemMatch("crew", Criteria.where("relationId").is(relationId));
 
-		if (movie == null) {
-			return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
-		}
+		Movie movie = mongo.findAndModify(query, new Update().pull("crew", new Document("relationId", relationId)).inc("version", 1), Movie.class);
 
-		if (movie.getCrew() == null) {
-			return new Result<>(null, true, "Crew not found", 0, Result.Code.NOT_FOUND);
-		}
+		if (movie == null || movie.getCrew() == null || movie.getCrew().isEmpty()) {
+
+			if (!mongo.exists(Query.query(versionCriteria(id, null)), Movie.class)) {
+				return new Result<>(null, true, "Movie not found", 0, Result.Code.NOT_FOUND);
+			}
 
-		Crew crew = movie.getCrew().stream().filter(c -> c.getRelationId().equals(relationId)).findFirst().orElse(null);
+			if (!mongo.exists(Query.query(versionCriteria(id, version)), Movie.class)) {
+				return new Result<>(null, true, "Movie version does not match", 0, Result.Code.PRECONDITION_FAILED);
+			}
 
-		if (crew == null) {
 			return new Result<>(null, true, "Crew not found", 0, Result.Code.NOT_FOUND);
+
 		}
 
-		movie.getCrew().remove(crew);
+		cache.invalidate(id);
+		credits.remove(id, CreditType.CREW, relationId);
+
+		return new Result<>(movie.getCrew().get(0), false, "Crew removed", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que obtiene el criterio de búsqueda de una película no eliminada, exigiendo una versión si se indica
+	 *
+	 * @param id      identificador de la película
+	 * @param version versión esperada de la película o null si no se exige ninguna
+	 * @return criterio de búsqueda
+	 */
+	private Criteria versionCriteria(String id, Long version) {
 
-		movies.save(movie);
+		Criteria criteria = Criteria.where("id").is(id).and("deleted").exists(false);
 
-		return new Result<>(crew, false, "Crew removed", 0, Result.Code.OK);
+		return version != null ? criteria.and("version").is(version) : criteria;
 
 	}
 
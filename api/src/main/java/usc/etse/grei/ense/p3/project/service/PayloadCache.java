@@ -0,0 +1,106 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Servicio que implementa la caché de respuestas ya serializadas y comprimidas de los documentos más leídos
+ */
+@Service
+public class PayloadCache {
+
+	private final Cache<String, Payload> cache;
+	private final int minimumSize;
+
+	@Autowired
+	public PayloadCache(MeterRegistry registry, @Value("${api.http.payloads.weight:33554432}") long maximumWeight, @Value("${server.compression.min-response-size:2048}") int minimumSize) {
+		this.minimumSize = minimumSize;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(maximumWeight)
+				.weigher((String key, Payload payload) -> payload.getWeight())
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(registry, cache, "payloads");
+	}
+
+	/**
+	 * Metodo que obtiene una respuesta de la caché, serializándola si no está presente
+	 *
+	 * @param key        clave de la respuesta, que debe incluir la versión del documento
+	 * @param serializer función que serializa la respuesta
+	 * @return respuesta serializada
+	 */
+	public Payload get(String key, Supplier<byte[]> serializer) {
+		return cache.get(key, k -> create(serializer.get()));
+	}
+
+	/**
+	 * Metodo que prepara una respuesta serializada sin almacenarla, comprimiéndola si supera el tamaño mínimo
+	 *
+	 * @param bytes respuesta serializada
+	 * @return respuesta serializada
+	 */
+	public Payload create(byte[] bytes) {
+		return new Payload(bytes, bytes.length >= minimumSize ? gzip(bytes) : null);
+	}
+
+	/**
+	 * Metodo que comprime una respuesta con gzip
+	 *
+	 * @param bytes respuesta serializada
+	 * @return respuesta comprimida
+	 */
+	private byte[] gzip(byte[] bytes) {
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4);
+
+		try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+			gzip.write(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return output.toByteArray();
+
+	}
+
+	/**
+	 * Respuesta serializada, con su versión comprimida si supera el tamaño mínimo
+	 */
+	public static final class Payload {
+
+		private final byte[] bytes;
+		private final byte[] gzip;
+
+		private Payload(byte[] bytes, byte[] gzip) {
+			this.bytes = bytes;
+			this.gzip = gzip;
+		}
+
+		public byte[] getBytes() {
+			return bytes;
+		}
+
+		public byte[] getGzip() {
+			return gzip;
+		}
+
+		private int getWeight() {
+			return bytes.length + (gzip != null ? gzip.length : 0);
+		}
+
+	}
+
+}
\ No newline at end of file
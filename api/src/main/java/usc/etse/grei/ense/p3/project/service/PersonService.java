@@ -0,0 +1,164 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.*;
+import usc.etse.grei.ense.p3.project.repository.PersonRepository;
+import usc.etse.grei.ense.p3.project.util.PageUtil;
+import usc.etse.grei.ense.p3.project.util.PatchUtil;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Servicio que implementa la lógica de negocio para personas
+ */
+@Service
+public class PersonService {
+
+	private final PersonRepository persons;
+	private final MongoTemplate mongo;
+	private final PatchUtil patchUtil;
+	private final PageUtil pageUtil;
+	private final JobService jobs;
+	private final SuggestService suggest;
+	private final Validator validator;
+
+	@Autowired
+	public PersonService(PersonRepository persons, MongoTemplate mongo, PatchUtil patchUtil, PageUtil pageUtil, JobService jobs, SuggestService suggest, Validator validator) {
+		this.persons = persons;
+		this.mongo = mongo;
+		this.patchUtil = patchUtil;
+		this.pageUtil = pageUtil;
+		this.jobs = jobs;
+		this.suggest = suggest;
+		this.validator = validator;
+	}
+
+	/**
+	 * Metodo que obtiene una lista de personas ordenadas por nombre
+	 *
+	 * @param page  número de página
+	 * @param size  número de personas por página
+	 * @param count modo de recuento del total de personas
+	 * @return resultado de la búsqueda
+	 */
+	public Result<Page<Person>> get(int page, int size, CountMode count) {
+
+		Pageable request = PageRequest.of(page, size, Sort.by("name", "id"));
+
+		Page<Person> pageResult = pageUtil.find(new Criteria(), request, Person.class, count, "name", "country", "picture");
+
+		return new Result<>(pageResult, false, "Persons found", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que obtiene una persona a partir de su identificador
+	 *
+	 * @param id identificador de la persona
+	 * @return resultado de la búsqueda
+	 */
+	public Result<Person> get(String id) {
+
+		Person person = persons.findById(id).orElse(null);
+
+		if (person == null) {
+			return new Result<>(null, false, "Person not found", 0, Result.Code.NOT_FOUND);
+		}
+
+		return new Result<>(person, false, "Person data", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que almacena una nueva persona
+	 *
+	 * @param person persona creada
+	 * @return resultado de la creación
+	 */
+	public Result<Person> create(Person person) {
+
+		persons.insert(person);
+
+		suggest.putPerson(person);
+
+		return new Result<>(person, false, "Person created", 0, Result.Code.CREATED);
+
+	}
+
+	/**
+	 * Metodo que modifica la información de una persona almacenada, propagando los cambios de nombre a los repartos y
+	 * equipos de las películas en las que participa
+	 *
+	 * @param id         identificador de la persona modificada
+	 * @param operations lista de operaciones de modificación
+	 * @return resultado de la modificación
+	 */
+	public Result<Person> update(String id, List<Map<String, Object>> operations) {
+
+		try {
+
+			Person originalPerson = persons.findById(id).orElse(null);
+
+			if (originalPerson == null) {
+				return new Result<>(null, false, "Person not found", 0, Result.Code.NOT_FOUND);
+			}
+
+			operations.removeIf(op -> op.containsKey("path") && op.get("path").equals("/id"));
+
+			Person filteredPerson = patchUtil.patch(originalPerson, operations);
+
+			Set<ConstraintViolation<Person>> violations = validator.validate(filteredPerson, OnUpdate.class);
+
+			if (!violations.isEmpty()) {
+				return new Result<>(null, true, "Invalid due to violations", 0, Result.Code.BAD_REQUEST);
+			}
+
+			Update update = patchUtil.toUpdate(originalPerson, filteredPerson, operations);
+
+			if (update.getUpdateObject().isEmpty()) {
+				return new Result<>(originalPerson, false, "Person updated", 0, Result.Code.OK);
+			}
+
+			Person updatedPerson = mongo.findAndModify(Query.query(Criteria.where("id").is(id)), update, FindAndModifyOptions.options().returnNew(true), Person.class);
+
+			if (updatedPerson == null) {
+				return new Result<>(null, false, "Person not found", 0, Result.Code.NOT_FOUND);
+			}
+
+			suggest.putPerson(updatedPerson);
+
+			if (!originalPerson.getName().equals(updatedPerson.getName())) {
+
+				String job = jobs.submit(JobType.PERSON_NAME, updatedPerson.getId(), updatedPerson.getName());
+
+				if (job != null) {
+					return new Result<>(updatedPerson, false, "Person updated, name propagation pending", 0, Result.Code.ACCEPTED).setJob(job);
+				}
+
+			}
+
+			return new Result<>(updatedPerson, false, "Person updated", 0, Result.Code.OK);
+
+		} catch (Exception e) {
+
+			return new Result<>(null, true, e.getLocalizedMessage(), 0, Result.Code.BAD_REQUEST);
+
+		}
+
+	}
+
+}
\ No newline at end of file
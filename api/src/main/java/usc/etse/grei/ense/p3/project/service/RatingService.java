@@ -0,0 +1,236 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.Assessment;
+import usc.etse.grei.ense.p3.project.model.Movie;
+import usc.etse.grei.ense.p3.project.model.Result;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio que mantiene las valoraciones agregadas de cada película
+ */
+@Service
+public class RatingService {
+
+	private static final Logger logger = LoggerFactory.getLogger(RatingService.class);
+
+	private final MongoTemplate mongo;
+	private final MovieCache cache;
+
+	@Autowired
+	public RatingService(MongoTemplate mongo, MovieCache cache) {
+		this.mongo = mongo;
+		this.cache = cache;
+	}
+
+	/**
+	 * Metodo que añade una valoración a los agregados de una película
+	 *
+	 * @param movieId identificador de la película
+	 * @param rating  valoración añadida
+	 */
+	public void add(String movieId, int rating) {
+
+		apply(movieId, new Update()
+				.inc("ratings.count", 1)
+				.inc("ratings.sum", rating)
+				.inc("ratings.squares", rating * rating)
+				.inc("ratings.histogram." + rating, 1));
+
+	}
+
+	/**
+	 * Metodo que sustituye una valoración en los agregados de una película
+	 *
+	 * @param movieId   identificador de la película
+	 * @param oldRating valoración anterior
+	 * @param newRating valoración nueva
+	 */
+	public void replace(String movieId, int oldRating, int newRating) {
+
+		if (oldRating == newRating) {
+			return;
+		}
+
+		apply(movieId, new Update()
+				.inc("ratings.sum", newRating - oldRating)
+				.inc("ratings.squares", newRating * newRating - oldRating * oldRating)
+				.inc("ratings.histogram." + oldRating, -1)
+				.inc("ratings.histogram." + newRating, 1));
+
+	}
+
+	/**
+	 * Metodo que elimina una valoración de los agregados de una película
+	 *
+	 * @param movieId identificador de la película
+	 * @param rating  valoración eliminada
+	 */
+	public void remove(String movieId, int rating) {
+
+		apply(movieId, new Update()
+				.inc("ratings.count", -1)
+				.inc("ratings.sum", -rating)
+				.inc("ratings.squares", -rating * rating)
+				.inc("ratings.histogram." + rating, -1));
+
+	}
+
+	/**
+	 * Metodo que elimina un lote de valoraciones de los agregados de las películas, con una única actualización por
+	 * película afectada
+	 *
+	 * @param assessments comentarios eliminados, con el identificador de su película y su valoración
+	 */
+	public void removeAll(List<Assessment> assessments) {
+
+		Map<String, Map<String, Long>> increments = new HashMap<>();
+
+		for (Assessment assessment : assessments) {
+
+			long rating = assessment.getRating();
+			Map<String, Long> movie = increments.computeIfAbsent(assessment.getMovie().getId(), id -> new HashMap<>());
+
+			movie.merge("ratings.count", -1L, Long::sum);
+			movie.merge("ratings.sum", -rating, Long::sum);
+			movie.merge("ratings.squares", -rating * rating, Long::sum);
+			movie.merge("ratings.histogram." + rating, -1L, Long::sum);
+
+		}
+
+		if (increments.isEmpty()) {
+			return;
+		}
+
+		BulkOperations operations = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class);
+
+		increments.forEach((movieId, fields) -> {
+
+			Update update = new Update().inc("version", 1);
+			fields.forEach(update::inc);
+
+			operations.updateOne(Query.query(Criteria.where("id").is(movieId)), update);
+
+		});
+
+		operations.execute();
+
+		increments.keySet().forEach(cache::invalidate);
+
+	}
+
+	/**
+	 * Metodo que recalcula periódicamente los agregados de todas las películas
+	 */
+	@Scheduled(cron = "${api.ratings.rebuild:0 0 4 * * *}")
+	public void scheduledRebuild() {
+		rebuild();
+	}
+
+	/**
+	 * Metodo que recalcula los agregados de todas las películas a partir de sus comentarios para corregir desviaciones,
+	 * incrementando la versión únicamente de las películas cuyos agregados cambian. Los agregados se comparan campo a
+	 * campo, y los histogramas como conjuntos de entradas sin las de valor cero, para que el orden de las claves o los
+	 * contadores que han llegado a cero no cuenten como cambios.
+	 * <p>
+	 * Los agregados recalculados son una instantánea de los comentarios, por lo que solo se escriben si la versión de la
+	 * película no ha cambiado desde que se leyó. Toda modificación incremental de los agregados incrementa la versión,
+	 * de modo que las películas que reciben valoraciones durante el recálculo conservan sus agregados y se corrigen, si
+	 * es necesario, en el siguiente recálculo
+	 *
+	 * @return resultado del recálculo
+	 */
+	public Result<Void> rebuild() {
+
+		try {
+
+			Document rating = new Document("$multiply", List.of("$$this._id", "$$this.n"));
+			Document square = new Document("$multiply", List.of("$$this._id", "$$this._id", "$$this.n"));
+			Document entry = new Document("k", new Document("$toString", "$$this._id")).append("v", "$$this.n");
+			Document unchanged = new Document("$and", List.of(
+					new Document("$eq", List.of(new Document("$ifNull", List.of("$ratings.count", 0L)), "$$new.ratings.count")),
+					new Document("$eq", List.of(new Document("$ifNull", List.of("$ratings.sum", 0L)), "$$new.ratings.sum")),
+					new Document("$eq", List.of(new Document("$ifNull", List.of("$ratings.squares", 0L)), "$$new.ratings.squares")),
+					new Document("$setEquals", List.of(histogram("$ratings.histogram"), histogram("$$new.ratings.histogram")))
+			));
+			Document current = new Document("$eq", List.of("$version", "$$new.seen"));
+			Document ratings = new Document("$cond", List.of(current, "$$new.ratings", "$ratings"));
+			Document version = new Document("$cond", List.of(
+					new Document("$or", List.of(new Document("$not", List.of(current)), unchanged)),
+					"$version",
+					new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L))
+			));
+
+			List<Document> pipeline = List.of(
+					new Document("$project", new Document("_id", 1).append("seen", "$version")),
+					new Document("$lookup", new Document("from", "assessments")
+							.append("localField", "_id")
+							.append("foreignField", "movie._id")
+							.append("pipeline", List.of(new Document("$group", new Document("_id", "$rating").append("n", new Document("$sum", 1)))))
+							.append("as", "h")),
+					new Document("$project", new Document("ratings", new Document("count", new Document("$sum", "$h.n"))
+							.append("sum", new Document("$sum", new Document("$map", new Document("input", "$h").append("in", rating))))
+							.append("squares", new Document("$sum", new Document("$map", new Document("input", "$h").append("in", square))))
+							.append("histogram", new Document("$arrayToObject", new Document("$map", new Document("input", "$h").append("in", entry)))))
+							.append("seen", 1)),
+					new Document("$merge", new Document("into", mongo.getCollectionName(Movie.class))
+							.append("on", "_id")
+							.append("whenMatched", List.of(new Document("$set", new Document("ratings", ratings).append("version", version))))
+							.append("whenNotMatched", "discard"))
+			);
+
+			mongo.getCollection(mongo.getCollectionName(Movie.class)).aggregate(pipeline).toCollection();
+
+			cache.invalidateAll();
+
+			return new Result<>(null, false, "Ratings rebuilt", 0, Result.Code.OK);
+
+		} catch (Exception e) {
+
+			logger.warn("Ratings could not be rebuilt: {}", e.getLocalizedMessage());
+
+			return new Result<>(null, true, e.getLocalizedMessage(), 0, Result.Code.BAD_REQUEST);
+
+		}
+
+	}
+
+	/**
+	 * Metodo que obtiene la expresión que convierte un histograma en la lista de sus entradas con valor distinto de cero
+	 *
+	 * @param histogram expresión del histograma
+	 * @return expresión de la lista de entradas
+	 */
+	private static Document histogram(String histogram) {
+		return new Document("$filter", new Document("input", new Document("$objectToArray", new Document("$ifNull", List.of(histogram, new Document()))))
+				.append("cond", new Document("$ne", List.of("$$this.v", 0))));
+	}
+
+	/**
+	 * Metodo que aplica de forma atómica una actualización de los agregados de una película
+	 *
+	 * @param movieId identificador de la película
+	 * @param update  incrementos aplicados
+	 */
+	private void apply(String movieId, Update update) {
+
+		mongo.updateFirst(Query.query(Criteria.where("id").is(movieId)), update.inc("version", 1), Movie.class);
+
+		cache.invalidate(movieId);
+
+	}
+
+}
\ No newline at end of file
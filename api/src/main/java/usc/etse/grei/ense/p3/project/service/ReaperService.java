@@ -0,0 +1,108 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.Assessment;
+import usc.etse.grei.ense.p3.project.model.Movie;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servicio que purga en segundo plano las películas eliminadas cuyo plazo de recuperación ha terminado, junto con sus
+ * comentarios
+ */
+@Service
+public class ReaperService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReaperService.class);
+
+	private final MongoTemplate mongo;
+	private final CreditService credits;
+	private final MeterRegistry registry;
+	private final Duration window;
+	private final int batchSize;
+	private final int batches;
+	private final AtomicLong backlog;
+
+	@Autowired
+	public ReaperService(MongoTemplate mongo, CreditService credits, MeterRegistry registry, @Value("${api.reaper.window:7d}") Duration window, @Value("${api.reaper.batch:1000}") int batchSize, @Value("${api.reaper.batches:10}") int batches) {
+		this.mongo = mongo;
+		this.credits = credits;
+		this.registry = registry;
+		this.window = window;
+		this.batchSize = batchSize;
+		this.batches = batches;
+		this.backlog = registry.gauge("reaper.backlog", new AtomicLong());
+	}
+
+	/**
+	 * Metodo que purga periódicamente las películas caducadas, eliminando como mucho un número fijo de lotes en cada
+	 * ejecución para no competir con el tráfico de la aplicación. Los comentarios de una película se eliminan antes que
+	 * la propia película, de modo que una ejecución interrumpida se retoma en la siguiente
+	 */
+	@Scheduled(cron = "${api.reaper.cron:0 */15 1-6 * * *}")
+	public void reap() {
+
+		Timer.Sample sample = Timer.start(registry);
+
+		try {
+
+			Criteria expired = Criteria.where("deleted").lte(Instant.now().minus(window));
+
+			for (int i = 0; i < batches; i++) {
+
+				Query movieQuery = Query.query(expired).limit(batchSize);
+				movieQuery.fields().include("id");
+
+				List<String> ids = mongo.find(movieQuery, Movie.class).stream().map(Movie::getId).toList();
+
+				if (ids.isEmpty()) {
+					break;
+				}
+
+				Query assessmentQuery = Query.query(Criteria.where("movie.id").in(ids)).limit(batchSize);
+				assessmentQuery.fields().include("id");
+
+				List<String> assessments = mongo.find(assessmentQuery, Assessment.class).stream().map(Assessment::getId).toList();
+
+				if (!assessments.isEmpty()) {
+
+					long removed = mongo.remove(Query.query(Criteria.where("id").in(assessments)), Assessment.class).getDeletedCount();
+					registry.counter("reaper.documents", "collection", "assessments").increment(removed);
+
+				} else {
+
+					credits.removeAll(ids);
+
+					long removed = mongo.remove(Query.query(Criteria.where("id").in(ids)).addCriteria(expired), Movie.class).getDeletedCount();
+					registry.counter("reaper.documents", "collection", "movies").increment(removed);
+
+				}
+
+			}
+
+			backlog.set(mongo.count(Query.query(expired), Movie.class));
+
+		} catch (Exception e) {
+
+			logger.warn("Deleted movies could not be purged: {}", e.getLocalizedMessage());
+
+		}
+
+		sample.stop(registry.timer("reaper.duration"));
+
+	}
+
+}
\ No newline at end of file
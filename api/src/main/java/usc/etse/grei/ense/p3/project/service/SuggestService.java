@@ -0,0 +1,223 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.*;
+import usc.etse.grei.ense.p3.project.util.PrefixIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Servicio que implementa las sugerencias de títulos de películas y nombres de personas
+ */
+@Service
+public class SuggestService {
+
+	private static final Logger logger = LoggerFactory.getLogger(SuggestService.class);
+
+	private final MongoTemplate mongo;
+	private final int limit;
+	private volatile PrefixIndex movies;
+	private volatile PrefixIndex persons;
+	private final Object rebuilding;
+	private List<Runnable> changes;
+
+	@Autowired
+	public SuggestService(MongoTemplate mongo, @Value("${api.suggest.limit:10}") int limit) {
+		this.mongo = mongo;
+		this.limit = limit;
+		this.movies = new PrefixIndex(limit);
+		this.persons = new PrefixIndex(limit);
+		this.rebuilding = new Object();
+	}
+
+	/**
+	 * Metodo que obtiene las películas más populares cuyo título empieza por un prefijo
+	 *
+	 * @param prefix prefijo del título
+	 * @param size   número máximo de sugerencias
+	 * @return resultado de la búsqueda
+	 */
+	public Result<List<Suggestion>> suggestMovies(String prefix, int size) {
+		return new Result<>(movies.suggest(prefix, Math.min(size, limit)), false, "Movie suggestions", 0, Result.Code.OK);
+	}
+
+	/**
+	 * Metodo que obtiene las personas más populares cuyo nombre empieza por un prefijo
+	 *
+	 * @param prefix prefijo del nombre
+	 * @param size   número máximo de sugerencias
+	 * @return resultado de la búsqueda
+	 */
+	public Result<List<Suggestion>> suggestPersons(String prefix, int size) {
+		return new Result<>(persons.suggest(prefix, Math.min(size, limit)), false, "Person suggestions", 0, Result.Code.OK);
+	}
+
+	/**
+	 * Metodo que añade o actualiza la sugerencia de una película
+	 *
+	 * @param movie película creada o modificada
+	 */
+	public void putMovie(Movie movie) {
+
+		Suggestion suggestion = new Suggestion(movie.getId(), movie.getTitle(), popularity(movie));
+
+		apply(() -> movies.put(suggestion));
+
+	}
+
+	/**
+	 * Metodo que elimina la sugerencia de una película
+	 *
+	 * @param id identificador de la película
+	 */
+	public void removeMovie(String id) {
+		apply(() -> movies.remove(id));
+	}
+
+	/**
+	 * Metodo que añade o actualiza la sugerencia de una persona conservando su popularidad
+	 *
+	 * @param person persona creada o modificada
+	 */
+	public void putPerson(Person person) {
+
+		String id = person.getId();
+		String name = person.getName();
+
+		apply(() -> {
+			Suggestion previous = persons.get(id);
+			persons.put(new Suggestion(id, name, previous != null ? previous.getWeight() : 0L));
+		});
+
+	}
+
+	/**
+	 * Metodo que reconstruye periódicamente las sugerencias a partir de la base de datos, actualizando su popularidad.
+	 * Las modificaciones realizadas durante la reconstrucción se registran y se aplican de nuevo sobre los índices
+	 * reconstruidos al sustituirlos, ya que la lectura de la base de datos puede ser anterior a ellas
+	 */
+	@Scheduled(fixedDelayString = "${api.suggest.refresh:3600000}")
+	public void rebuild() {
+
+		synchronized (rebuilding) {
+			rebuildIndexes();
+		}
+
+	}
+
+	/**
+	 * Metodo que construye los nuevos índices de sugerencias y los sustituye por los actuales
+	 */
+	private void rebuildIndexes() {
+
+		synchronized (this) {
+			changes = new ArrayList<>();
+		}
+
+		try {
+
+			PrefixIndex newMovies = new PrefixIndex(limit);
+			PrefixIndex newPersons = new PrefixIndex(limit);
+
+			Query movieQuery = Query.query(Criteria.where("deleted").exists(false));
+			movieQuery.fields().include("title", "ratings.count");
+
+			try (Stream<Movie> stream = mongo.stream(movieQuery, Movie.class)) {
+				stream.filter(movie -> movie.getTitle() != null).forEach(movie -> newMovies.put(new Suggestion(movie.getId(), movie.getTitle(), popularity(movie))));
+			}
+
+			Map<String, Long> credits = credits();
+
+			Query personQuery = new Query();
+			personQuery.fields().include("name");
+
+			try (Stream<Person> stream = mongo.stream(personQuery, Person.class)) {
+				stream.filter(person -> person.getName() != null).forEach(person -> newPersons.put(new Suggestion(person.getId(), person.getName(), credits.getOrDefault(person.getId(), 0L))));
+			}
+
+			synchronized (this) {
+				movies = newMovies;
+				persons = newPersons;
+				changes.forEach(Runnable::run);
+			}
+
+		} catch (Exception e) {
+
+			logger.warn("Suggestions could not be rebuilt: {}", e.getLocalizedMessage());
+
+		} finally {
+
+			synchronized (this) {
+				changes = null;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Metodo que aplica una modificación sobre los índices actuales y la registra si hay una reconstrucción en curso
+	 *
+	 * @param change modificación, que se aplica sobre los índices vigentes en el momento de ejecutarla
+	 */
+	private synchronized void apply(Runnable change) {
+
+		change.run();
+
+		if (changes != null) {
+			changes.add(change);
+		}
+
+	}
+
+	/**
+	 * Metodo que calcula la popularidad de una película como su número de valoraciones
+	 *
+	 * @param movie película
+	 * @return popularidad
+	 */
+	private long popularity(Movie movie) {
+		return movie.getRatings() != null && movie.getRatings().getCount() != null ? movie.getRatings().getCount() : 0L;
+	}
+
+	/**
+	 * Metodo que cuenta las apariciones de cada persona en repartos y equipos de trabajo de películas no eliminadas
+	 *
+	 * @return número de apariciones por identificador de persona
+	 */
+	private Map<String, Long> credits() {
+
+		List<Document> pipeline = List.of(
+				new Document("$match", new Document("deleted", new Document("$exists", false))),
+				new Document("$project", new Document("ids", new Document("$setUnion", List.of(
+						new Document("$ifNull", List.of("$cast._id", List.of())),
+						new Document("$ifNull", List.of("$crew._id", List.of()))
+				)))),
+				new Document("$unwind", "$ids"),
+				new Document("$group", new Document("_id", "$ids").append("n", new Document("$sum", 1)))
+		);
+
+		Map<String, Long> credits = new HashMap<>();
+
+		for (Document document : mongo.getCollection(mongo.getCollectionName(Movie.class)).aggregate(pipeline).allowDiskUse(true)) {
+			credits.put(document.get("_id").toString(), ((Number) document.get("n")).longValue());
+		}
+
+		return credits;
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.User;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Servicio que implementa la caché de credenciales y relaciones de amistad de los usuarios
+ */
+@Service
+public class UserCache {
+
+	private final Cache<String, User> principals;
+	private final Cache<List<String>, Boolean> friendships;
+	private final Map<String, Set<List<String>>> keys;
+
+	@Autowired
+	public UserCache(MeterRegistry registry, @Value("${api.cache.users.ttl:300}") long ttl, @Value("${api.cache.users.size:10000}") long size) {
+		this.principals = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(ttl))
+				.maximumSize(size)
+				.recordStats()
+				.build();
+		this.friendships = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(ttl))
+				.maximumSize(size)
+				.recordStats()
+				.<List<String>, Boolean>removalListener((key, value, cause) -> unindex(key))
+				.build();
+		this.keys = new ConcurrentHashMap<>();
+
+		CaffeineCacheMetrics.monitor(registry, principals, "principals");
+		CaffeineCacheMetrics.monitor(registry, friendships, "friendships");
+	}
+
+	/**
+	 * Metodo que obtiene las credenciales de un usuario, cargándolas si no están en la caché
+	 *
+	 * @param email  correo electrónico del usuario
+	 * @param loader función de carga de las credenciales
+	 * @return usuario con correo, contraseña y roles o null si no existe
+	 */
+	public User getPrincipal(String email, Function<String, User> loader) {
+		return principals.get(email, loader);
+	}
+
+	/**
+	 * Metodo que comprueba si dos usuarios son amigos, calculándolo si no está en la caché
+	 *
+	 * @param requestEmail correo electrónico del usuario solicitado en la petición
+	 * @param userEmail    correo electrónico del usuario que realiza la petición
+	 * @param loader       función de cálculo de la relación
+	 * @return resultado de la comprobación
+	 */
+	public boolean areFriends(String requestEmail, String userEmail, Supplier<Boolean> loader) {
+		return friendships.get(List.of(requestEmail, userEmail), key -> {
+			index(key);
+			return loader.get();
+		});
+	}
+
+	/**
+	 * Metodo que elimina de la caché las credenciales y relaciones de un usuario, recorriendo solo las relaciones
+	 * registradas en su índice
+	 *
+	 * @param email correo electrónico del usuario
+	 */
+	public void invalidate(String email) {
+
+		principals.invalidate(email);
+
+		Set<List<String>> userKeys = keys.remove(email);
+
+		if (userKeys != null) {
+			friendships.invalidateAll(userKeys);
+		}
+
+	}
+
+	/**
+	 * Metodo que registra una relación en el índice de cada uno de sus usuarios
+	 *
+	 * @param key correos electrónicos de la relación
+	 */
+	private void index(List<String> key) {
+
+		for (String email : key) {
+			keys.computeIfAbsent(email, k -> ConcurrentHashMap.newKeySet()).add(key);
+		}
+
+	}
+
+	/**
+	 * Metodo que elimina una relación del índice de sus usuarios cuando sale de la caché
+	 *
+	 * @param key correos electrónicos de la relación
+	 */
+	private void unindex(List<String> key) {
+
+		// La relación puede haberse vuelto a cargar antes de que se notifique su eliminación
+		if (key == null || friendships.asMap().containsKey(key)) {
+			return;
+		}
+
+		for (String email : key) {
+			keys.computeIfPresent(email, (k, userKeys) -> {
+				userKeys.remove(key);
+				return userKeys.isEmpty() ? null : userKeys;
+			});
+		}
+
+	}
+
+}
\ No newline at end of file
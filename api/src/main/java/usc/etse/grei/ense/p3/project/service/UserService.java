@@ -2,17 +2,21 @@ package usc.etse.grei.ense.p3.project.service;
 
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import usc.etse.grei.ense.p3.project.model.Date;
 import usc.etse.grei.ense.p3.project.model.*;
-import usc.etse.grei.ense.p3.project.repository.AssessmentRepository;
 import usc.etse.grei.ense.p3.project.repository.UserRepository;
+import usc.etse.grei.ense.p3.project.util.PageUtil;
 import usc.etse.grei.ense.p3.project.util.PatchUtil;
 
 import java.time.LocalDate;
@@ -25,18 +29,22 @@ import java.util.*;
 public class UserService {
 
 	private final UserRepository users;
+	private final UserCache cache;
 	private final MongoTemplate mongo;
 	private final PatchUtil patchUtil;
-	private final AssessmentRepository assessments;
+	private final PageUtil pageUtil;
+	private final JobService jobs;
 	private final Validator validator;
 	private final PasswordEncoder encoder;
 
 	@Autowired
-	public UserService(UserRepository users, MongoTemplate mongo, PatchUtil patchUtil, AssessmentRepository assessments, Validator validator, PasswordEncoder encoder) {
+	public UserService(UserRepository users, UserCache cache, MongoTemplate mongo, PatchUtil patchUtil, PageUtil pageUtil, JobService jobs, Validator validator, PasswordEncoder encoder) {
 		this.users = users;
+		this.cache = cache;
 		this.mongo = mongo;
 		this.patchUtil = patchUtil;
-		this.assessments = assessments;
+		this.pageUtil = pageUtil;
+		this.jobs = jobs;
 		this.validator = validator;
 		this.encoder = encoder;
 	}
@@ -48,21 +56,16 @@ public class UserService {
 	 * @param size   número de usuarios por página
 	 * @param sort   criterio de ordenación
 	 * @param filter criterio de filtrado por nombre o dirección de correo
+	 * @param count  modo de recuento del total de usuarios
 	 * @return resultado de la búsqueda
 	 */
-	public Result<Page<User>> get(int page, int size, Sort sort, Example<User> filter) {
+	public Result<Page<User>> get(int page, int size, Sort sort, Example<User> filter, CountMode count) {
 
 		Pageable request = PageRequest.of(page, size, sort);
 
 		Criteria criteria = Criteria.byExample(filter);
 
-		Query query = Query.query(criteria).with(request);
-		query.fields().include("name", "country", "birthday", "picture");
-
-		List<User> result = mongo.find(query, User.class);
-		long totalElements = mongo.count(Query.query(criteria), User.class);
-
-		Page<User> pageResult = new PageImpl<>(result, request, totalElements);
+		Page<User> pageResult = pageUtil.find(criteria, request, User.class, count, "name", "country", "birthday", "picture");
 
 		return new Result<>(pageResult, false, "Users data", 0, Result.Code.OK);
 
@@ -89,7 +92,9 @@ public class UserService {
 	}
 
 	/**
-	 * Metodo que añade un usuario a la base de datos
+	 * Metodo que añade un usuario a la base de datos. La versión inicial es el instante de creación, de modo que una
+	 * cuenta registrada de nuevo con el correo de una cuenta eliminada no repite sus versiones, y por tanto tampoco sus
+	 * etiquetas de entidad ni sus respuestas cacheadas
 	 *
 	 * @param user usuario añadido
 	 * @return resultado de la inserción
@@ -98,12 +103,6 @@ public class UserService {
 
 		try {
 
-			User existingUser = users.findById(user.getEmail()).orElse(null);
-
-			if (existingUser != null) {
-				return new Result<>(null, false, "User already exists", 0, Result.Code.CONFLICT);
-			}
-
 			Date date = user.getBirthday();
 
 			LocalDate birthday = LocalDate.of(date.getYear(), date.getMonth(), date.getDay());
@@ -118,8 +117,15 @@ public class UserService {
 			roles.add("ROLE_USER");
 			user.setRoles(roles);
 
-			User newUser = users.insert(user);
-			return new Result<>(newUser, false, "User created", 0, Result.Code.CREATED);
+			Document document = new Document();
+			mongo.getConverter().write(user.setVersion(System.currentTimeMillis()), document);
+			mongo.insert(document, mongo.getCollectionName(User.class));
+
+			return new Result<>(user, false, "User created", 0, Result.Code.CREATED);
+
+		} catch (DuplicateKeyException e) {
+
+			return new Result<>(null, false, "User already exists", 0, Result.Code.CONFLICT);
 
 		} catch (Exception e) {
 
@@ -134,9 +140,10 @@ public class UserService {
 	 *
 	 * @param email      correo electrónico del usuario
 	 * @param operations lista de operaciones de modificación
+	 * @param version    versión esperada del usuario o null si no se exige ninguna
 	 * @return resultado de la modificación
 	 */
-	public Result<User> update(String email, List<Map<String, Object>> operations) {
+	public Result<User> update(String email, List<Map<String, Object>> operations, Long version) {
 
 		try {
 
@@ -146,14 +153,16 @@ public class UserService {
 				return new Result<>(null, false, "No user", 0, Result.Code.NOT_FOUND);
 			}
 
-			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/email") || op.get("path").equals("/birthday") || ((String) op.get("path")).startsWith("/friends") || ((String) op.get("path")).startsWith("/roles")));
+			if (version != null && !version.equals(originalUser.getVersion())) {
+				return new Result<>(null, true, "User version does not match", 0, Result.Code.PRECONDITION_FAILED);
+			}
+
+			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/email") || op.get("path").equals("/birthday") || ((String) op.get("path")).startsWith("/friends") || ((String) op.get("path")).startsWith("/roles") || op.get("path").equals("/version")));
 
 			User filteredUser = patchUtil.patch(originalUser, operations);
 
-			List<FriendRelation> friendsCopy = filteredUser.getFriends();
 			List<String> rolesCopy = filteredUser.getRoles();
 
-			filteredUser.setFriends(null);
 			filteredUser.setRoles(null);
 
 			Set<ConstraintViolation<User>> violations = validator.validate(filteredUser, OnUpdate.class);
@@ -162,55 +171,30 @@ public class UserService {
 				return new Result<>(null, true, "Not valid due to violations", 0, Result.Code.BAD_REQUEST);
 			}
 
-			filteredUser.setFriends(friendsCopy);
 			filteredUser.setRoles(rolesCopy);
 
+			Update update = patchUtil.toUpdate(originalUser, filteredUser, operations).inc("version", 1);
+
 			if (!filteredUser.getPassword().equals(originalUser.getPassword())) {
-				filteredUser.setPassword(encoder.encode(filteredUser.getPassword()));
+				update.set("password", encoder.encode(filteredUser.getPassword()));
 			}
 
-			User updatedUser = users.save(filteredUser);
-
-			ExampleMatcher matcher = ExampleMatcher.matching();
-			Example<Assessment> filter = Example.of(
-					new Assessment().setUser(new User().setEmail(updatedUser.getEmail())),
-					matcher
-			);
+			Query query = Query.query(Criteria.where("email").is(email).and("version").is(originalUser.getVersion()));
 
-			if (!originalUser.getName().equals(updatedUser.getName())) {
+			User updatedUser = mongo.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), User.class);
 
-				assessments.findAll(filter).forEach(assessment -> {
-
-					User user = assessment.getUser();
-					user.setName(updatedUser.getName());
-
-					assessment.setUser(user);
-
-					assessments.save(assessment);
-
-				});
-
-				if (updatedUser.getFriends() != null) {
-
-					for (FriendRelation friend : updatedUser.getFriends()) {
-
-						Optional<User> resultFriend = users.findById(friend.getFriendEmail());
-						User friendUser = resultFriend.get();
-
-						List<FriendRelation> friends = friendUser.getFriends();
-
-						friends.removeIf(f -> f.getFriendEmail().equals(updatedUser.getEmail()));
-
-						FriendRelation newFriendRelation = new FriendRelation(updatedUser.getEmail(), updatedUser.getName(), friend.getStatus(), friend.getRequested(), friend.getAccepted());
-
-						friends.add(newFriendRelation);
+			if (updatedUser == null) {
+				return new Result<>(null, true, "User modified concurrently", 0, version != null ? Result.Code.PRECONDITION_FAILED : Result.Code.CONFLICT);
+			}
 
-						friendUser.setFriends(friends);
+			cache.invalidate(email);
 
-						users.save(friendUser);
+			if (!originalUser.getName().equals(updatedUser.getName())) {
 
-					}
+				String job = jobs.submit(JobType.USER_NAME, updatedUser.getEmail(), updatedUser.getName());
 
+				if (job != null) {
+					return new Result<>(updatedUser, false, "User updated, name propagation pending", 0, Result.Code.ACCEPTED).setJob(job);
 				}
 
 			}
@@ -241,35 +225,53 @@ public class UserService {
 
 		User user = result.get();
 
-		ExampleMatcher matcher = ExampleMatcher.matching();
-		Example<Assessment> filter = Example.of(
-				new Assessment().setUser(new User().setEmail(user.getEmail())),
-				matcher
-		);
+		users.delete(user);
 
-		assessments.deleteAll(assessments.findAll(filter));
+		mongo.remove(Query.query(new Criteria().orOperator(Criteria.where("user").is(email), Criteria.where("friendEmail").is(email))), Friendship.class);
 
-		if (user.getFriends() != null) {
-			for (FriendRelation friend : user.getFriends()) {
-				deleteFriend(user.getEmail(), friend.getFriendEmail(), true);
-			}
-		}
+		cache.invalidate(email);
 
-		users.delete(user);
+		String job = jobs.submit(JobType.USER_DELETE, email, null);
+
+		if (job != null) {
+			return new Result<>(user, false, "User deleted, assessments deletion pending", 0, Result.Code.ACCEPTED).setJob(job);
+		}
 
 		return new Result<>(user, false, "User deleted", 0, Result.Code.OK);
 
 	}
 
 	/**
-	 * Metodo que añade un usuario a la lista de amigos de otro usuario
+	 * Metodo que obtiene una página de la lista de amigos de un usuario
+	 *
+	 * @param email correo electrónico del usuario
+	 * @param page  número de página
+	 * @param size  número de amigos por página
+	 * @param count modo de recuento del total de amigos
+	 * @return resultado de la búsqueda
+	 */
+	public Result<Page<Friendship>> getFriends(String email, int page, int size, CountMode count) {
+
+		if (!users.existsById(email)) {
+			return new Result<>(null, false, "No user", 0, Result.Code.NOT_FOUND);
+		}
+
+		Pageable request = PageRequest.of(page, size, Sort.by("friendEmail"));
+
+		Page<Friendship> pageResult = pageUtil.find(Criteria.where("user").is(email), request, Friendship.class, count, "friendEmail", "friendName", "status", "requested", "accepted");
+
+		return new Result<>(pageResult, false, "Friends data", 0, Result.Code.OK);
+
+	}
+
+	/**
+	 * Metodo que añade un usuario a la lista de amigos de otro usuario, creando la relación en ambas direcciones
 	 *
 	 * @param email  correo electrónico del usuario actual
 	 * @param friend usuario añadido a la lista de amigos del usuario actual
-	 * @param redo   booleano que indica si la inserción se realiza en ambas direcciones
 	 * @return resultado de la inserción
 	 */
-	public Result<User> createFriend(String email, FriendRelation friend, boolean redo) {
+	public Result<Friendship> createFriend(String email, FriendRelation friend) {
 
 		User user = users.findById(email).orElse(null);
 
@@ -283,86 +285,63 @@ public class UserService {
 			return new Result<>(null, false, "No friend", 0, Result.Code.NOT_FOUND);
 		}
 
-		if (user.equals(bdFriend)) {
+		if (user.getEmail().equals(bdFriend.getEmail())) {
 			return new Result<>(null, false, "Recursive adition", 0, Result.Code.BAD_REQUEST);
 		}
 
-		List<FriendRelation> friends = user.getFriends();
-
-		if (friends == null) {
-			friends = new ArrayList<>();
-		}
-
-		if (friends.stream().anyMatch(f -> f.getFriendEmail().equals(bdFriend.getEmail()))) {
-			return new Result<>(null, false, "Friend already added", 0, Result.Code.BAD_REQUEST);
-		}
-
 		LocalDate now = LocalDate.now();
 		Date createdDate = new Date(now.getDayOfMonth(), now.getMonthValue(), now.getYear());
 
-		FriendRelation newFriendRelation = new FriendRelation(friend.getFriendEmail(), friend.getFriendName(), FriendStatus.PENDING, createdDate, null);
+		Friendship friendship = new Friendship(email, bdFriend.getEmail(), bdFriend.getName(), FriendStatus.PENDING, createdDate, null);
 
-		friends.add(newFriendRelation);
+		try {
 
-		user.setFriends(friends);
+			mongo.insert(friendship);
 
-		users.save(user);
+		} catch (DuplicateKeyException e) {
 
-		if (redo) {
+			return new Result<>(null, false, "Friend already added", 0, Result.Code.BAD_REQUEST);
 
-			FriendRelation reversedFriendRelation = new FriendRelation(email, user.getName(), FriendStatus.PENDING, createdDate, null);
+		}
 
-			createFriend(bdFriend.getEmail(), reversedFriendRelation, false);
+		Update reversed = new Update()
+				.setOnInsert("friendName", user.getName())
+				.setOnInsert("status", FriendStatus.PENDING)
+				.setOnInsert("requested", createdDate);
 
-		}
+		mongo.upsert(relation(bdFriend.getEmail(), email), reversed, Friendship.class);
+
+		cache.invalidate(email);
+		cache.invalidate(bdFriend.getEmail());
 
-		return new Result<>(user, false, "Friend added", 0, Result.Code.CREATED);
+		return new Result<>(friendship, false, "Friend added", 0, Result.Code.CREATED);
 
 	}
 
 	/**
-	 * Metodo que modifica el estado de un amigo en la lista de amigos de un usuario
+	 * Metodo que modifica el estado de un amigo en la lista de amigos de un usuario, aplicando la misma modificación a
+	 * la relación inversa
 	 *
 	 * @param email       correo electrónico del usuario actual
 	 * @param friendEmail correo electrónico del amigo cuyo estado se modifica
 	 * @param operations  lista de operaciones de modificación
-	 * @param redo        booleano que indica si la modificación se realiza en ambas direcciones
 	 * @return resultado de la modificación
 	 */
-
-	public Result<User> updateFriend(String email, String friendEmail, List<Map<String, Object>> operations, boolean redo) {
+	public Result<Friendship> updateFriend(String email, String friendEmail, List<Map<String, Object>> operations) {
 
 		try {
 
-			User user = users.findById(email).orElse(null);
-
-			if (user == null) {
-				return new Result<>(null, false, "No user", 0, Result.Code.NOT_FOUND);
-			}
-
-			List<FriendRelation> friends = user.getFriends();
+			Friendship friendship = mongo.findOne(relation(email, friendEmail), Friendship.class);
 
-			if (friends == null) {
-				return new Result<>(null, false, "No friends", 0, Result.Code.NOT_FOUND);
-			}
-
-			User friend = users.findById(friendEmail).orElse(null);
-
-			if (friend == null) {
-				return new Result<>(null, false, "No friend", 0, Result.Code.NOT_FOUND);
-			}
-
-			FriendRelation friendRelation = friends.stream().filter(f -> f.getFriendEmail().equals(friendEmail)).findFirst().orElse(null);
-
-			if (friendRelation == null) {
+			if (friendship == null) {
 				return new Result<>(null, false, "No friend", 0, Result.Code.NOT_FOUND);
 			}
 
-			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/friend")));
+			operations.removeIf(op -> op.containsKey("path") && (op.get("path").equals("/friend") || op.get("path").equals("/friendEmail") || op.get("path").equals("/user")));
 
-			FriendRelation filteredFriend = patchUtil.patch(friendRelation, operations);
+			Friendship filteredFriend = patchUtil.patch(friendship, operations);
 
-			Set<ConstraintViolation<FriendRelation>> violations = validator.validate(filteredFriend, OnUpdate.class);
+			Set<ConstraintViolation<Friendship>> violations = validator.validate(filteredFriend, OnUpdate.class);
 
 			if (!violations.isEmpty()) {
 				return new Result<>(null, true, "Not valid due to violations", 0, Result.Code.BAD_REQUEST);
@@ -370,31 +349,31 @@ public class UserService {
 
 			if (filteredFriend.getStatus().equals(FriendStatus.DECLINED)) {
 
-				deleteFriend(email, friendEmail, true);
+				deleteFriend(email, friendEmail);
 
-				friends.removeIf(f -> f.getFriendEmail().equals(friendEmail));
-				user.setFriends(friends);
+				return new Result<>(filteredFriend, false, "Friend updated", 0, Result.Code.OK);
 
-			} else {
+			}
 
-				LocalDate now = LocalDate.now();
-				Date acceptedDate = new Date(now.getDayOfMonth(), now.getMonthValue(), now.getYear());
-				filteredFriend.setAccepted(acceptedDate);
+			LocalDate now = LocalDate.now();
+			Date acceptedDate = new Date(now.getDayOfMonth(), now.getMonthValue(), now.getYear());
 
-				friends.removeIf(f -> f.getFriendEmail().equals(friendEmail));
-				friends.add(filteredFriend);
+			filteredFriend.setAccepted(acceptedDate);
 
-				user.setFriends(friends);
+			updateRelation(relation(email, friendEmail), patchUtil.diff(friendship, filteredFriend));
 
-				users.save(user);
+			Friendship reversed = mongo.findOne(relation(friendEmail, email), Friendship.class);
 
-				if (redo) {
-					updateFriend(friendEmail, email, operations, false);
-				}
+			if (reversed != null) {
+
+				Friendship filteredReversed = patchUtil.patch(reversed, operations);
+				filteredReversed.setAccepted(acceptedDate);
+
+				updateRelation(relation(friendEmail, email), patchUtil.diff(reversed, filteredReversed));
 
 			}
 
-			return new Result<>(user, false, "Friend updated", 0, Result.Code.OK);
+			return new Result<>(filteredFriend, false, "Friend updated", 0, Result.Code.OK);
 
 		} catch (Exception e) {
 
@@ -405,48 +384,26 @@ public class UserService {
 	}
 
 	/**
-	 * Metodo que elimina a un usuario de la lista de amigos de otro usuario
+	 * Metodo que elimina a un usuario de la lista de amigos de otro usuario, eliminando la relación en ambas direcciones
 	 *
 	 * @param email       correo electrónico del usuario actual
 	 * @param friendEmail correo electrónico del usuario eliminado de la lista de amigos
-	 * @param redo        booleano que indica si la eliminación se realiza en ambas direcciones
 	 * @return resultado de la eliminación
 	 */
-	public Result<User> deleteFriend(String email, String friendEmail, boolean redo) {
+	public Result<Friendship> deleteFriend(String email, String friendEmail) {
 
-		User user = users.findById(email).orElse(null);
+		Friendship friendship = mongo.findAndRemove(relation(email, friendEmail), Friendship.class);
 
-		if (user == null) {
-			return new Result<>(null, false, "No user", 0, Result.Code.NOT_FOUND);
-		}
-
-		List<FriendRelation> friends = user.getFriends();
-
-		if (friends == null) {
-			return new Result<>(null, false, "No friends", 0, Result.Code.NOT_FOUND);
-		}
-
-		User friend = users.findById(friendEmail).orElse(null);
-
-		if (friend == null) {
-			return new Result<>(null, false, "No friend", 0, Result.Code.NOT_FOUND);
-		}
-
-		if (friends.stream().noneMatch(f -> f.getFriendEmail().equals(friendEmail))) {
+		if (friendship == null) {
 			return new Result<>(null, false, "No friend", 0, Result.Code.NOT_FOUND);
 		}
 
-		friends.removeIf(f -> f.getFriendEmail().equals(friendEmail));
-
-		user.setFriends(friends);
-
-		users.save(user);
+		mongo.remove(relation(friendEmail, email), Friendship.class);
 
-		if (redo) {
-			deleteFriend(friendEmail, email, false);
-		}
+		cache.invalidate(email);
+		cache.invalidate(friendEmail);
 
-		return new Result<>(user, false, "Friend deleted", 0, Result.Code.OK);
+		return new Result<>(friendship, false, "Friend deleted", 0, Result.Code.OK);
 
 	}
 
@@ -458,22 +415,33 @@ public class UserService {
 	 * @return resultado de la comprobación
 	 */
 	public Boolean areFriends(String requestEmail, String userEmail) {
+		return cache.areFriends(requestEmail, userEmail, () -> mongo.exists(relation(userEmail, requestEmail), Friendship.class));
+	}
 
-		User requestUser = users.findById(requestEmail).orElse(null);
-		User user = users.findById(userEmail).orElse(null);
-
-		if (requestUser == null || user == null) {
-			return false;
-		}
+	/**
+	 * Metodo que obtiene la consulta de la relación de amistad de un usuario con otro, resuelta con el índice único
+	 * de la colección de amistades
+	 *
+	 * @param email       correo electrónico del usuario propietario de la relación
+	 * @param friendEmail correo electrónico del amigo
+	 * @return consulta de la relación
+	 */
+	private Query relation(String email, String friendEmail) {
+		return Query.query(Criteria.where("user").is(email).and("friendEmail").is(friendEmail));
+	}
 
-		List<FriendRelation> friends = user.getFriends();
+	/**
+	 * Metodo que modifica una relación de amistad si alguno de sus campos ha cambiado
+	 *
+	 * @param query  consulta de la relación
+	 * @param update campos modificados
+	 */
+	private void updateRelation(Query query, Update update) {
 
-		if (friends == null) {
-			return false;
+		if (!update.getUpdateObject().isEmpty()) {
+			mongo.updateFirst(query, update, Friendship.class);
 		}
 
-		return friends.stream().anyMatch(f -> f.getFriendEmail().equals(requestEmail));
-
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package usc.etse.grei.ense.p3.project.util;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Clase que implementa la codificación de los cursores de paginación
+ */
+public class CursorUtil {
+
+	private static final Set<String> ID_KEYS = Set.of("id", "_id");
+	private static final JsonWriterSettings settings = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+	/**
+	 * Metodo que convierte una posición de desplazamiento en un cursor opaco. Los valores de las claves se convierten a
+	 * tipos BSON y se codifican como Extended JSON, de modo que conservan su tipo (identificadores, fechas, enteros
+	 * largos o documentos embebidos) al decodificarlos
+	 *
+	 * @param position  posición del último elemento devuelto
+	 * @param sort      criterio de ordenación utilizado
+	 * @param converter conversor de los valores de las claves a tipos de MongoDB
+	 * @return cursor codificado
+	 */
+	public static String encode(ScrollPosition position, Sort sort, MongoConverter converter) {
+
+		try {
+
+			Document keys = new Document();
+			((KeysetScrollPosition) position).getKeys().forEach((key, value) -> keys.put(key, converter.convertToMongoType(value)));
+
+			Document cursor = new Document("sort", sort.toString()).append("keys", keys);
+
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toJson(settings).getBytes(StandardCharsets.UTF_8));
+
+		} catch (Exception e) {
+
+			return null;
+
+		}
+
+	}
+
+	/**
+	 * Metodo que convierte un cursor opaco en una posición de desplazamiento
+	 *
+	 * @param cursor cursor codificado (vacío para la primera posición)
+	 * @param sort   criterio de ordenación de la petición
+	 * @return posición de desplazamiento o null si el cursor no es válido o sus claves no coinciden con la ordenación
+	 */
+	public static KeysetScrollPosition decode(String cursor, Sort sort) {
+
+		if (cursor == null || cursor.isBlank()) {
+			return ScrollPosition.keyset();
+		}
+
+		try {
+
+			Document decoded = Document.parse(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+
+			if (!sort.toString().equals(decoded.get("sort")) || !(decoded.get("keys") instanceof Document keys)) {
+				return null;
+			}
+
+			// Las claves son las propiedades de la ordenación más el identificador, que se añade como desempate
+			Set<String> extra = new HashSet<>(keys.keySet());
+			List<String> properties = sort.stream().map(Sort.Order::getProperty).toList();
+
+			if (!extra.containsAll(properties)) {
+				return null;
+			}
+
+			extra.removeAll(properties);
+
+			if (!ID_KEYS.containsAll(extra) || extra.size() > 1 || Collections.disjoint(keys.keySet(), ID_KEYS)) {
+				return null;
+			}
+
+			return ScrollPosition.forward(keys);
+
+		} catch (Exception e) {
+
+			return null;
+
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package usc.etse.grei.ense.p3.project.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import usc.etse.grei.ense.p3.project.model.CountMode;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Servicio que implementa la paginación de consultas con distintos modos de recuento
+ */
+@Service
+public class PageUtil {
+
+	private final MongoTemplate mongo;
+	private final QueryMapper queryMapper;
+	private final Cache<String, Long> counts;
+
+	@Autowired
+	public PageUtil(MongoTemplate mongo, @Value("${api.count.ttl:30}") long ttl, @Value("${api.count.size:10000}") long size) {
+		this.mongo = mongo;
+		this.queryMapper = new QueryMapper(mongo.getConverter());
+		this.counts = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(ttl))
+				.maximumSize(size)
+				.build();
+	}
+
+	/**
+	 * Metodo que obtiene una página de resultados calculando el total según el modo de recuento
+	 *
+	 * @param criteria criterio de filtrado
+	 * @param request  página solicitada
+	 * @param type     clase de los documentos
+	 * @param mode     modo de recuento del total de elementos
+	 * @param fields   campos incluidos en la proyección
+	 * @param <T>      metodo genérico
+	 * @return página de resultados
+	 */
+	public <T> Page<T> find(Criteria criteria, Pageable request, Class<T> type, CountMode mode, String... fields) {
+		return find(Query.query(criteria), request, type, mode, fields);
+	}
+
+	/**
+	 * Metodo que obtiene una página de resultados de una consulta calculando el total según el modo de recuento
+	 *
+	 * @param query   consulta de filtrado, que conserva su ordenación previa (por ejemplo, por relevancia)
+	 * @param request página solicitada
+	 * @param type    clase de los documentos
+	 * @param mode    modo de recuento del total de elementos
+	 * @param fields  campos incluidos en la proyección
+	 * @param <T>     metodo genérico
+	 * @return página de resultados
+	 */
+	public <T> Page<T> find(Query query, Pageable request, Class<T> type, CountMode mode, String... fields) {
+
+		Document filter = query.getQueryObject();
+
+		query.with(request);
+		query.fields().include(fields);
+
+		if (mode == CountMode.NONE) {
+
+			query.limit(request.getPageSize() + 1);
+
+			List<T> result = mongo.find(query, type);
+
+			boolean hasNext = result.size() > request.getPageSize();
+
+			if (hasNext) {
+				result = result.subList(0, request.getPageSize());
+			}
+
+			return new PageImpl<>(result, request, request.getOffset() + result.size() + (hasNext ? 1 : 0));
+
+		}
+
+		List<T> result = mongo.find(query, type);
+
+		long totalElements = mode == CountMode.ESTIMATED ? estimatedCount(filter, type) : mongo.count(new BasicQuery(filter), type);
+
+		return new PageImpl<>(result, request, totalElements);
+
+	}
+
+	/**
+	 * Metodo que estima el número de documentos que cumplen un criterio. Solo las consultas sin filtro utilizan los
+	 * metadatos de la colección; el resto se cuentan y el resultado se conserva durante un tiempo limitado
+	 *
+	 * @param filter filtro de la consulta
+	 * @param type   clase de los documentos
+	 * @return número estimado de documentos
+	 */
+	private long estimatedCount(Document filter, Class<?> type) {
+
+		Document mapped = queryMapper.getMappedObject(filter, mongo.getConverter().getMappingContext().getPersistentEntity(type));
+
+		if (mapped.keySet().stream().allMatch(key -> key.equals("_class"))) {
+			return mongo.estimatedCount(type);
+		}
+
+		String key = type.getName() + mapped.toJson();
+
+		return counts.get(key, k -> mongo.count(new BasicQuery(filter), type));
+
+	}
+
+}
\ No newline at end of file
@@ -1,14 +1,24 @@
 package usc.etse.grei.ense.p3.project.util;
 
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
 import com.github.fge.jsonpatch.JsonPatch;
 import com.github.fge.jsonpatch.JsonPatchException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Map;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Servicio que implementa las actualizaciones parciales de objetos
@@ -16,15 +26,141 @@ import java.util.Map;
 @Service
 public class PatchUtil {
 
+	private static final Set<String> DIRECT_OPERATIONS = Set.of("add", "replace", "remove");
+
 	private final ObjectMapper mapper;
+	private final MongoMappingContext mappingContext;
+	private final Map<Class<?>, Accessors> accessors;
 
 	@Autowired
-	public PatchUtil(ObjectMapper mapper) {
+	public PatchUtil(ObjectMapper mapper, MongoMappingContext mappingContext) {
 		this.mapper = mapper;
+		this.mappingContext = mappingContext;
+		this.accessors = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Metodo que aplica una lista de modificaciones a un objeto. Las operaciones add, replace y remove sobre propiedades
+	 * se aplican directamente sobre una copia profunda del objeto, y el resto se aplican utilizando JSONPatch
+	 *
+	 * @param data    objeto al que se le aplican las modificaciones
+	 * @param updates lista de operaciones
+	 * @param <T>     metodo genérico
+	 * @return objeto modificado, sin alterar el original
+	 * @throws JsonPatchException excepcion
+	 */
+	public <T> T patch(T data, List<Map<String, Object>> updates) throws JsonPatchException {
+
+		List<Operation> operations = compile(data.getClass(), updates);
+
+		if (operations != null) {
+
+			T patched = copy(data);
+
+			if (operations.stream().allMatch(operation -> operation.apply(patched))) {
+				return patched;
+			}
+
+		}
+
+		return treePatch(data, updates);
+
+	}
+
+	/**
+	 * Metodo que traduce una lista de modificaciones a una actualización de MongoDB con $set y $unset sobre los nombres
+	 * de los campos almacenados
+	 *
+	 * @param type    clase del documento modificado
+	 * @param updates lista de operaciones
+	 * @return actualización equivalente o null si alguna operación no se puede traducir
+	 */
+	public Update toUpdate(Class<?> type, List<Map<String, Object>> updates) {
+
+		List<Operation> operations = compile(type, updates);
+
+		if (operations == null) {
+			return null;
+		}
+
+		Update update = new Update();
+
+		for (Operation operation : operations) {
+
+			String path = operation.path.stream().map(this::fieldName).collect(Collectors.joining("."));
+
+			if (operation.remove) {
+				update.unset(path);
+			} else {
+				update.set(path, operation.value);
+			}
+
+		}
+
+		return update;
+
+	}
+
+	/**
+	 * Metodo que obtiene la actualización de MongoDB equivalente a una lista de modificaciones, comparando el objeto
+	 * original con el modificado cuando alguna operación no se puede traducir directamente
+	 *
+	 * @param original objeto original
+	 * @param patched  objeto modificado
+	 * @param updates  lista de operaciones
+	 * @param <T>      metodo genérico
+	 * @return actualización equivalente
+	 */
+	public <T> Update toUpdate(T original, T patched, List<Map<String, Object>> updates) {
+
+		Update update = toUpdate(original.getClass(), updates);
+
+		return update != null ? update : diff(original, patched);
+
+	}
+
+	/**
+	 * Metodo que obtiene la actualización de MongoDB con $set y $unset de las propiedades que difieren entre dos objetos
+	 *
+	 * @param original objeto original
+	 * @param patched  objeto modificado
+	 * @param <T>      metodo genérico
+	 * @return actualización de las propiedades modificadas
+	 */
+	public <T> Update diff(T original, T patched) {
+
+		Update update = new Update();
+
+		try {
+
+			for (Field field : accessors(original.getClass()).properties.values()) {
+
+				Object value = field.get(patched);
+
+				if (!Objects.equals(field.get(original), value)) {
+
+					if (value == null) {
+						update.unset(fieldName(field));
+					} else {
+						update.set(fieldName(field), value);
+					}
+
+				}
+
+			}
+
+		} catch (IllegalAccessException e) {
+
+			throw new IllegalStateException(e);
+
+		}
+
+		return update;
+
 	}
 
 	/**
-	 * Metodo que aplica una lista de modificaciones a un objeto utilizando JSONPatch
+	 * Metodo que aplica una lista de modificaciones convirtiendo el objeto completo a JSON y de vuelta
 	 *
 	 * @param data    objeto al que se le aplican las modificaciones
 	 * @param updates lista de operaciones
@@ -33,7 +169,7 @@ public class PatchUtil {
 	 * @throws JsonPatchException excepcion
 	 */
 	@SuppressWarnings("unchecked")
-	public <T> T patch(T data, List<Map<String, Object>> updates) throws JsonPatchException {
+	private <T> T treePatch(T data, List<Map<String, Object>> updates) throws JsonPatchException {
 
 		JsonPatch operations = mapper.convertValue(updates, JsonPatch.class);
 		JsonNode json = mapper.convertValue(data, JsonNode.class);
@@ -42,4 +178,366 @@ public class PatchUtil {
 
 	}
 
+	/**
+	 * Metodo que compila una lista de modificaciones en operaciones directas sobre las propiedades de una clase
+	 *
+	 * @param type    clase del objeto modificado
+	 * @param updates lista de operaciones
+	 * @return operaciones compiladas o null si alguna solo se puede aplicar con JSONPatch
+	 */
+	private List<Operation> compile(Class<?> type, List<Map<String, Object>> updates) {
+
+		List<Operation> operations = new ArrayList<>(updates.size());
+
+		for (Map<String, Object> update : updates) {
+
+			Object op = update.get("op");
+			Object pointer = update.get("path");
+
+			if (!(op instanceof String) || !DIRECT_OPERATIONS.contains(op) || !(pointer instanceof String)) {
+				return null;
+			}
+
+			List<Field> path = path(type, (String) pointer);
+
+			if (path.isEmpty()) {
+				return null;
+			}
+
+			Field field = path.get(path.size() - 1);
+
+			if (op.equals("remove")) {
+
+				if (field.getType().isPrimitive()) {
+					return null;
+				}
+
+				operations.add(new Operation(path, null, true, true));
+
+			} else {
+
+				if (!update.containsKey("value")) {
+					return null;
+				}
+
+				JavaType javaType = mapper.constructType(field.getGenericType());
+				operations.add(new Operation(path, mapper.convertValue(update.get("value"), javaType), op.equals("replace"), false));
+
+			}
+
+		}
+
+		return operations;
+
+	}
+
+	/**
+	 * Metodo que obtiene las propiedades recorridas por un JSON Pointer. Solo se memorizan las rutas válidas, que están
+	 * limitadas por las propiedades de la clase, para que las rutas arbitrarias enviadas por los clientes no hagan
+	 * crecer la memoria
+	 *
+	 * @param type    clase del objeto raíz
+	 * @param pointer ruta de la propiedad
+	 * @return propiedades recorridas o lista vacía si la ruta no se puede aplicar directamente
+	 */
+	private List<Field> path(Class<?> type, String pointer) {
+
+		Map<String, List<Field>> paths = accessors(type).paths;
+		List<Field> path = paths.get(pointer);
+
+		if (path == null) {
+
+			path = resolve(type, pointer);
+
+			if (!path.isEmpty()) {
+				paths.put(pointer, path);
+			}
+
+		}
+
+		return path;
+
+	}
+
+	/**
+	 * Metodo que obtiene el nombre con el que se almacena una propiedad en MongoDB
+	 *
+	 * @param field propiedad
+	 * @return nombre del campo almacenado
+	 */
+	private String fieldName(Field field) {
+
+		MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(field.getDeclaringClass());
+		MongoPersistentProperty property = entity != null ? entity.getPersistentProperty(field.getName()) : null;
+
+		return property != null ? property.getFieldName() : field.getName();
+
+	}
+
+	/**
+	 * Metodo que resuelve un JSON Pointer como una cadena de propiedades anidadas
+	 *
+	 * @param type    clase del objeto raíz
+	 * @param pointer ruta de la propiedad
+	 * @return propiedades recorridas o lista vacía si la ruta incluye índices de arrays, mapas o propiedades desconocidas
+	 */
+	private List<Field> resolve(Class<?> type, String pointer) {
+
+		if (!pointer.startsWith("/")) {
+			return List.of();
+		}
+
+		String[] segments = pointer.substring(1).split("/", -1);
+		List<Field> path = new ArrayList<>(segments.length);
+		Class<?> current = type;
+
+		for (int i = 0; i < segments.length; i++) {
+
+			Field field = accessors(current).properties.get(segments[i].replace("~1", "/").replace("~0", "~"));
+
+			if (field == null) {
+				return List.of();
+			}
+
+			path.add(field);
+
+			if (i < segments.length - 1) {
+
+				current = field.getType();
+
+				if (!isBean(current)) {
+					return List.of();
+				}
+
+			}
+
+		}
+
+		return List.copyOf(path);
+
+	}
+
+	/**
+	 * Metodo que comprueba si una clase es un objeto con propiedades y no un valor, una colección o un mapa
+	 *
+	 * @param type clase comprobada
+	 * @return true si se puede recorrer por propiedades
+	 */
+	private boolean isBean(Class<?> type) {
+		return !type.isPrimitive() && !type.isEnum() && !type.isArray()
+				&& !Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type)
+				&& !type.getName().startsWith("java.");
+	}
+
+	/**
+	 * Metodo que realiza una copia profunda de un objeto, copiando sus objetos anidados, colecciones y mapas y
+	 * compartiendo solo los valores inmutables
+	 *
+	 * @param data objeto copiado
+	 * @param <T>  metodo genérico
+	 * @return copia del objeto
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T copy(T data) {
+
+		Accessors classAccessors = accessors(data.getClass());
+
+		try {
+
+			T copy = (T) classAccessors.constructor.newInstance();
+
+			for (Field field : classAccessors.fields) {
+				field.set(copy, copyValue(field.get(data)));
+			}
+
+			return copy;
+
+		} catch (ReflectiveOperationException e) {
+
+			throw new IllegalStateException(e);
+
+		}
+
+	}
+
+	/**
+	 * Metodo que copia el valor de una propiedad
+	 *
+	 * @param value valor copiado
+	 * @return copia del valor, o el mismo valor si es inmutable o no se puede copiar
+	 */
+	private Object copyValue(Object value) {
+
+		if (value instanceof List<?> list) {
+
+			List<Object> copy = new ArrayList<>(list.size());
+
+			for (Object element : list) {
+				copy.add(copyValue(element));
+			}
+
+			return copy;
+
+		}
+
+		if (value instanceof Set<?> set) {
+
+			Set<Object> copy = new LinkedHashSet<>();
+
+			for (Object element : set) {
+				copy.add(copyValue(element));
+			}
+
+			return copy;
+
+		}
+
+		if (value instanceof Map<?, ?> map) {
+
+			Map<Object, Object> copy = new LinkedHashMap<>();
+
+			map.forEach((key, element) -> copy.put(key, copyValue(element)));
+
+			return copy;
+
+		}
+
+		if (value != null && isBean(value.getClass()) && accessors(value.getClass()).constructor != null) {
+			return copy(value);
+		}
+
+		return value;
+
+	}
+
+	/**
+	 * Metodo que obtiene los accesores de una clase, calculándolos la primera vez
+	 *
+	 * @param type clase
+	 * @return accesores de la clase
+	 */
+	private Accessors accessors(Class<?> type) {
+		return accessors.computeIfAbsent(type, this::introspect);
+	}
+
+	/**
+	 * Metodo que obtiene el constructor, los atributos y las propiedades JSON de una clase
+	 *
+	 * @param type clase
+	 * @return accesores de la clase
+	 */
+	private Accessors introspect(Class<?> type) {
+
+		List<Field> fields = new ArrayList<>();
+
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+		}
+
+		Map<String, Field> properties = new HashMap<>();
+
+		for (BeanPropertyDefinition property : mapper.getDeserializationConfig().introspect(mapper.constructType(type)).findProperties()) {
+			if (property.getField() != null && fields.contains(property.getField().getAnnotated())) {
+				properties.put(property.getName(), property.getField().getAnnotated());
+			}
+		}
+
+		Constructor<?> constructor;
+
+		try {
+			constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+		} catch (NoSuchMethodException e) {
+			constructor = null;
+		}
+
+		return new Accessors(constructor, List.copyOf(fields), Map.copyOf(properties));
+
+	}
+
+	/**
+	 * Accesores precalculados de una clase
+	 */
+	private static final class Accessors {
+
+		private final Constructor<?> constructor;
+		private final List<Field> fields;
+		private final Map<String, Field> properties;
+		private final Map<String, List<Field>> paths;
+
+		private Accessors(Constructor<?> constructor, List<Field> fields, Map<String, Field> properties) {
+			this.constructor = constructor;
+			this.fields = fields;
+			this.properties = constructor == null ? Map.of() : properties;
+			this.paths = new ConcurrentHashMap<>();
+		}
+
+	}
+
+	/**
+	 * Operación compilada sobre una propiedad, anidada o no
+	 */
+	private static final class Operation {
+
+		private final List<Field> path;
+		private final Object value;
+		private final boolean existing;
+		private final boolean remove;
+
+		private Operation(List<Field> path, Object value, boolean existing, boolean remove) {
+			this.path = path;
+			this.value = value;
+			this.existing = existing;
+			this.remove = remove;
+		}
+
+		/**
+		 * Metodo que aplica la operación sobre una copia profunda del objeto raíz
+		 *
+		 * @param root copia del objeto raíz
+		 * @return false si la operación no se puede aplicar directamente, por ejemplo si la propiedad no existe
+		 */
+		private boolean apply(Object root) {
+
+			try {
+
+				Object target = root;
+
+				for (int i = 0; i < path.size() - 1; i++) {
+
+					Object child = path.get(i).get(target);
+
+					if (child == null) {
+						return false;
+					}
+
+					target = child;
+
+				}
+
+				Field field = path.get(path.size() - 1);
+
+				if (existing && field.get(target) == null) {
+					return false;
+				}
+
+				field.set(target, value);
+
+				return true;
+
+			} catch (IllegalAccessException e) {
+
+				throw new IllegalStateException(e);
+
+			}
+
+		}
+
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package usc.etse.grei.ense.p3.project.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import usc.etse.grei.ense.p3.project.model.Suggestion;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estructura en memoria que obtiene las sugerencias más populares que empiezan por un prefijo
+ */
+public class PrefixIndex {
+
+	private static final long HEADS_SIZE = 10000;
+	private static final char SEPARATOR = '\u0000';
+	private static final Comparator<Suggestion> POPULARITY = Comparator.comparing(Suggestion::getWeight).reversed().thenComparing(Suggestion::getText);
+
+	private final int limit;
+	private final ConcurrentSkipListMap<String, Suggestion> entries;
+	private final Map<String, String> keys;
+	private final Cache<String, List<Suggestion>> heads;
+	private final AtomicLong generation;
+
+	public PrefixIndex(int limit) {
+		this.limit = limit;
+		this.entries = new ConcurrentSkipListMap<>();
+		this.keys = new ConcurrentHashMap<>();
+		this.heads = Caffeine.newBuilder().maximumSize(HEADS_SIZE).build();
+		this.generation = new AtomicLong();
+	}
+
+	/**
+	 * Metodo que normaliza un texto eliminando mayúsculas, tildes y espacios repetidos
+	 *
+	 * @param text texto original
+	 * @return texto normalizado
+	 */
+	public static String normalize(String text) {
+
+		return Normalizer.normalize(text, Normalizer.Form.NFD)
+				.replaceAll("\\p{M}", "")
+				.toLowerCase(Locale.ROOT)
+				.replaceAll("\\s+", " ")
+				.trim();
+
+	}
+
+	/**
+	 * Metodo que añade o sustituye una sugerencia
+	 *
+	 * @param suggestion sugerencia con identificador, texto y peso
+	 */
+	public void put(Suggestion suggestion) {
+
+		remove(suggestion.getId());
+
+		String key = normalize(suggestion.getText()) + SEPARATOR + suggestion.getId();
+
+		entries.put(key, suggestion);
+		keys.put(suggestion.getId(), key);
+
+		evict(key);
+
+	}
+
+	/**
+	 * Metodo que elimina una sugerencia
+	 *
+	 * @param id identificador del recurso sugerido
+	 */
+	public void remove(String id) {
+
+		String key = keys.remove(id);
+
+		if (key != null) {
+			entries.remove(key);
+			evict(key);
+		}
+
+	}
+
+	/**
+	 * Metodo que obtiene la sugerencia de un recurso
+	 *
+	 * @param id identificador del recurso sugerido
+	 * @return sugerencia o null si no existe
+	 */
+	public Suggestion get(String id) {
+
+		String key = keys.get(id);
+
+		return key == null ? null : entries.get(key);
+
+	}
+
+	/**
+	 * Metodo que obtiene las sugerencias más populares que empiezan por un prefijo. Las sugerencias de cada prefijo se
+	 * memorizan hasta que se modifica alguna clave que empieza por él, y un resultado solo se memoriza si ninguna
+	 * modificación ha terminado mientras se calculaba, para no conservar resultados anteriores a una modificación
+	 *
+	 * @param prefix prefijo buscado
+	 * @param size   número máximo de sugerencias
+	 * @return sugerencias ordenadas por popularidad
+	 */
+	public List<Suggestion> suggest(String prefix, int size) {
+
+		String normalized = normalize(prefix);
+
+		if (normalized.isEmpty()) {
+			return List.of();
+		}
+
+		List<Suggestion> top = heads.getIfPresent(normalized);
+
+		if (top == null) {
+
+			long stamp = generation.get();
+
+			top = top(normalized);
+
+			if (generation.get() == stamp) {
+
+				heads.put(normalized, top);
+
+				// Una modificación terminada entre la comprobación y la escritura puede haber invalidado el prefijo antes
+				if (generation.get() != stamp) {
+					heads.asMap().remove(normalized, top);
+				}
+
+			}
+
+		}
+
+		return top.subList(0, Math.min(size, top.size()));
+
+	}
+
+	/**
+	 * Metodo que recorre las sugerencias de un prefijo conservando únicamente las más populares
+	 *
+	 * @param prefix prefijo normalizado
+	 * @return sugerencias ordenadas por popularidad
+	 */
+	private List<Suggestion> top(String prefix) {
+
+		PriorityQueue<Suggestion> queue = new PriorityQueue<>(limit + 1, POPULARITY.reversed());
+
+		for (Suggestion suggestion : entries.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+
+			queue.offer(suggestion);
+
+			if (queue.size() > limit) {
+				queue.poll();
+			}
+
+		}
+
+		List<Suggestion> result = new ArrayList<>(queue);
+		result.sort(POPULARITY);
+
+		return List.copyOf(result);
+
+	}
+
+	/**
+	 * Metodo que descarta las sugerencias memorizadas de todos los prefijos de una clave
+	 *
+	 * @param key clave modificada
+	 */
+	private void evict(String key) {
+
+		generation.incrementAndGet();
+
+		for (int i = 1; i <= key.indexOf(SEPARATOR); i++) {
+			heads.invalidate(key.substring(0, i));
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package usc.etse.grei.ense.p3.project.configuration;
+
+import org.junit.jupiter.api.Test;
+import usc.etse.grei.ense.p3.project.model.CountMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CountModeConverterTest {
+
+	private final CountModeConverter converter = new CountModeConverter();
+
+	@Test
+	void convertsModesIgnoringCase() {
+
+		assertThat(converter.convert("exact")).isEqualTo(CountMode.EXACT);
+		assertThat(converter.convert("Estimated")).isEqualTo(CountMode.ESTIMATED);
+		assertThat(converter.convert("NONE")).isEqualTo(CountMode.NONE);
+
+	}
+
+	@Test
+	void rejectsUnknownModes() {
+		assertThatIllegalArgumentException().isThrownBy(() -> converter.convert("approximate"));
+	}
+
+}
\ No newline at end of file
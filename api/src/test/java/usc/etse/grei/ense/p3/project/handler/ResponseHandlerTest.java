@@ -0,0 +1,45 @@
+package usc.etse.grei.ense.p3.project.handler;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import usc.etse.grei.ense.p3.project.model.Movie;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseHandlerTest {
+
+	@Test
+	void versionedResourcesCarryTheirVersionAsETag() {
+
+		ResponseEntity<Object> response = ResponseHandler.generateResponse(false, "Movie data", 0, new Movie().setVersion(3L), List.of(), HttpStatus.OK);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getETag()).isEqualTo("\"3\"");
+
+	}
+
+	@Test
+	void matchingIfNoneMatchReturnsNotModified() {
+
+		assertThat(ResponseHandler.generateResponse(false, "Movie data", 0, new Movie().setVersion(3L), List.of(), HttpStatus.OK, "\"3\"").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(ResponseHandler.generateResponse(false, "Movie data", 0, new Movie().setVersion(3L), List.of(), HttpStatus.OK, "W/\"3-gzip\"").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(ResponseHandler.generateResponse(false, "Movie data", 0, new Movie().setVersion(4L), List.of(), HttpStatus.OK, "\"3\"").getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(ResponseHandler.generateResponse(false, "Movie created", 0, new Movie().setVersion(3L), List.of(), HttpStatus.CREATED, "*").getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+	}
+
+	@Test
+	void ifMatchIsParsedIntoTheExpectedVersion() {
+
+		assertThat(ResponseHandler.version(null)).isNull();
+		assertThat(ResponseHandler.version("*")).isNull();
+		assertThat(ResponseHandler.version("\"7\"")).isEqualTo(7L);
+		assertThat(ResponseHandler.version("W/\"7-gzip\", \"8\"")).isEqualTo(7L);
+		assertThat(ResponseHandler.version("\"abc\"")).isEqualTo(-1L);
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import usc.etse.grei.ense.p3.project.model.Assessment;
+import usc.etse.grei.ense.p3.project.model.Movie;
+import usc.etse.grei.ense.p3.project.model.Result;
+import usc.etse.grei.ense.p3.project.repository.AssessmentRepository;
+import usc.etse.grei.ense.p3.project.repository.MovieRepository;
+import usc.etse.grei.ense.p3.project.repository.UserRepository;
+import usc.etse.grei.ense.p3.project.util.PageUtil;
+import usc.etse.grei.ense.p3.project.util.PatchUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AssessmentServiceTest {
+
+	private final MongoTemplate mongo = mock(MongoTemplate.class);
+	private final RatingService ratings = mock(RatingService.class);
+	private final AssessmentService service = new AssessmentService(mock(AssessmentRepository.class), mock(UserRepository.class), mock(MovieRepository.class), ratings, mongo, mock(PatchUtil.class), mock(PageUtil.class), mock(Validator.class));
+
+	@Test
+	void concurrentDeletesSubtractTheRatingOnlyOnce() {
+
+		Assessment assessment = new Assessment().setId("a1").setRating(4).setMovie(new Movie().setId("m1"));
+
+		when(mongo.findAndRemove(any(Query.class), eq(Assessment.class))).thenReturn(assessment, (Assessment) null);
+
+		Result<Assessment> first = service.delete(assessment);
+		Result<Assessment> second = service.delete(assessment);
+
+		assertThat(first.getExternalCode()).isEqualTo(Result.Code.OK);
+		assertThat(second.getExternalCode()).isEqualTo(Result.Code.NOT_FOUND);
+		verify(ratings, times(1)).remove(anyString(), anyInt());
+		verify(ratings).remove("m1", 4);
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import usc.etse.grei.ense.p3.project.model.*;
+import usc.etse.grei.ense.p3.project.repository.PersonRepository;
+import usc.etse.grei.ense.p3.project.util.PageUtil;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CreditServiceTest {
+
+	private final MongoTemplate mongo = mock(MongoTemplate.class);
+	private final BulkOperations operations = mock(BulkOperations.class);
+	private final CreditService credits = new CreditService(mongo, mock(PageUtil.class), mock(PersonRepository.class));
+
+	CreditServiceTest() {
+		when(mongo.bulkOps(any(BulkOperations.BulkMode.class), eq(Credit.class))).thenReturn(operations);
+	}
+
+	@Test
+	void putAllOnlyIndexesCreditsLinkedToAPerson() {
+
+		Cast actor = new Cast().setCharacter("Cobb").setRelationId(1);
+		Crew director = new Crew().setJob("Director").setRelationId(3);
+
+		actor.setId("p1");
+		director.setId("p2");
+
+		Movie movie = new Movie().setId("m1").setTitle("Inception")
+				.setCast(List.of(actor, new Cast().setRelationId(2)))
+				.setCrew(List.of(director));
+
+		credits.putAll(List.of(movie));
+
+		verify(operations, times(2)).upsert(any(Query.class), any(Update.class));
+		verify(operations).execute();
+
+	}
+
+	@Test
+	void putAllSkipsTheBulkWriteWithoutCredits() {
+
+		credits.putAll(List.of(new Movie().setId("m1").setTitle("Inception")));
+
+		verify(operations, never()).execute();
+
+	}
+
+	@Test
+	void hideMarksAndRestoresTheCreditsOfAMovie() {
+
+		ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+
+		credits.hide("m1", Instant.EPOCH);
+		credits.hide("m1", null);
+
+		verify(mongo, times(2)).updateMulti(any(Query.class), updates.capture(), eq(Credit.class));
+
+		assertThat((Document) updates.getAllValues().get(0).getUpdateObject().get("$set")).containsEntry("deleted", Instant.EPOCH);
+		assertThat((Document) updates.getAllValues().get(1).getUpdateObject().get("$unset")).containsKey("deleted");
+
+	}
+
+}
\ No newline at end of file
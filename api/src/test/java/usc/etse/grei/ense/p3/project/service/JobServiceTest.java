@@ -0,0 +1,82 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import usc.etse.grei.ense.p3.project.model.*;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JobServiceTest {
+
+	private final MongoTemplate mongo = mock(MongoTemplate.class);
+	private final RatingService ratings = mock(RatingService.class);
+	private final MovieCache cache = mock(MovieCache.class);
+
+	@Test
+	void synchronousRenamesAreAppliedWithoutRegisteringAJob() {
+
+		when(mongo.updateMulti(any(Query.class), any(Update.class), any(Class.class))).thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+		String job = service(false).submit(JobType.MOVIE_TITLE, "m1", "Inception");
+
+		assertThat(job).isNull();
+		verify(mongo).updateMulti(any(Query.class), any(Update.class), eq(Assessment.class));
+		verify(mongo).updateMulti(any(Query.class), any(Update.class), eq(Credit.class));
+		verify(mongo, never()).insert(any(Job.class));
+
+	}
+
+	@Test
+	void asynchronousChangesAreQueuedAsPendingJobs() {
+
+		when(mongo.insert(any(Job.class))).thenAnswer(invocation -> ((Job) invocation.getArgument(0)).setId("j1"));
+
+		assertThat(service(true).submit(JobType.USER_NAME, "ann@mail.com", "Ann")).isEqualTo("j1");
+		verify(mongo, never()).updateMulti(any(Query.class), any(Update.class), any(Class.class));
+
+	}
+
+	@Test
+	void pollProcessesABoundedNumberOfJobsPerRun() {
+
+		when(mongo.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Job.class))).thenAnswer(invocation -> new Job(JobType.MOVIE_TITLE, "m1", "Inception").setId("j1"));
+		when(mongo.updateMulti(any(Query.class), any(Update.class), any(Class.class))).thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+		service(true).poll();
+
+		verify(mongo, times(10)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Job.class));
+		verify(mongo, times(10)).updateFirst(any(Query.class), any(Update.class), eq(Job.class));
+
+	}
+
+	@Test
+	void userDeletionOnlySubtractsTheAssessmentsThatWereRemoved() {
+
+		Assessment first = new Assessment().setId("a1").setRating(4).setMovie(new Movie().setId("m1"));
+		Assessment second = new Assessment().setId("a2").setRating(2).setMovie(new Movie().setId("m1"));
+
+		when(mongo.find(any(Query.class), eq(Assessment.class))).thenReturn(List.of(first, second), List.of());
+		when(mongo.findAndRemove(any(Query.class), eq(Assessment.class))).thenReturn(first, (Assessment) null);
+
+		service(false).submit(JobType.USER_DELETE, "ann@mail.com", null);
+
+		verify(ratings).removeAll(List.of(first));
+
+	}
+
+	private JobService service(boolean async) {
+		return new JobService(mongo, ratings, cache, new SimpleMeterRegistry(), async, 100, 10, Duration.ofMinutes(5));
+	}
+
+}
\ No newline at end of file
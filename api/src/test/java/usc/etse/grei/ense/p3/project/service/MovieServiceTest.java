@@ -0,0 +1,190 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.validation.Validator;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import usc.etse.grei.ense.p3.project.model.*;
+import usc.etse.grei.ense.p3.project.repository.MovieRepository;
+import usc.etse.grei.ense.p3.project.repository.PersonRepository;
+import usc.etse.grei.ense.p3.project.util.PageUtil;
+import usc.etse.grei.ense.p3.project.util.PatchUtil;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MovieServiceTest {
+
+	private final MovieRepository movies = mock(MovieRepository.class);
+	private final MongoTemplate mongo = mock(MongoTemplate.class);
+	private final PersonRepository persons = mock(PersonRepository.class);
+	private final CreditService credits = mock(CreditService.class);
+	private final MovieService service;
+
+	MovieServiceTest() {
+
+		MongoMappingContext context = new MongoMappingContext();
+
+		when(mongo.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context));
+
+		service = new MovieService(movies, mock(MovieCache.class), mongo, new PatchUtil(new ObjectMapper().findAndRegisterModules(), context), mock(PageUtil.class), mock(JobService.class), mock(SuggestService.class), credits, persons, new ObjectMapper().findAndRegisterModules(), mock(Validator.class), 100, 100, 100, Duration.ofDays(7));
+
+	}
+
+	@Test
+	void patchWithoutIfMatchIsNotGuardedByTheReadVersion() {
+
+		when(movies.findById("m1")).thenReturn(Optional.of(movie(5L)));
+		when(mongo.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Movie.class))).thenReturn(movie(7L).setTagline("Dreams"));
+
+		Result<Movie> result = service.update("m1", operations(), null);
+
+		assertThat(result.getExternalCode()).isEqualTo(Result.Code.OK);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongo).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Movie.class));
+
+		assertThat(query.getValue().getQueryObject()).doesNotContainKey("version");
+		assertThat((Document) update.getValue().getUpdateObject().get("$set")).containsEntry("tagline", "Dreams");
+		assertThat((Document) update.getValue().getUpdateObject().get("$inc")).containsEntry("version", 1);
+
+	}
+
+	@Test
+	void patchWithIfMatchIsGuardedByTheClientVersion() {
+
+		when(movies.findById("m1")).thenReturn(Optional.of(movie(5L)));
+
+		Result<Movie> result = service.update("m1", operations(), 5L);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongo).findAndModify(query.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Movie.class));
+
+		assertThat(query.getValue().getQueryObject()).containsEntry("version", 5L);
+		assertThat(result.getExternalCode()).isEqualTo(Result.Code.PRECONDITION_FAILED);
+
+	}
+
+	@Test
+	void staleIfMatchIsRejectedBeforeWriting() {
+
+		when(movies.findById("m1")).thenReturn(Optional.of(movie(5L)));
+
+		assertThat(service.update("m1", operations(), 4L).getExternalCode()).isEqualTo(Result.Code.PRECONDITION_FAILED);
+		verify(mongo, never()).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Movie.class));
+
+	}
+
+	@Test
+	void castOfAMissingMovieIsReportedBeforeAnUnknownPerson() {
+
+		Result<Cast> result = service.createCast("m1", new Cast().setCharacter("Cobb"), null);
+
+		assertThat(result.getExternalCode()).isEqualTo(Result.Code.NOT_FOUND);
+		assertThat(result.getMessaje()).isEqualTo("Movie not found");
+		verifyNoInteractions(persons);
+
+	}
+
+	@Test
+	void castIsReplacedInPlaceThroughAnArrayFilter() {
+
+		when(mongo.findOne(any(Query.class), eq(Movie.class))).thenReturn(movie(5L).setCast(List.of(new Cast().setCharacter("Cobb").setRelationId(1))));
+		when(mongo.updateFirst(any(Query.class), any(Update.class), eq(Movie.class))).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		Result<Cast> result = service.updateCast("m1", 1, new ArrayList<>(List.of(Map.of("op", "replace", "path", "/character", "value", "Mal"))), null);
+
+		assertThat(result.getExternalCode()).isEqualTo(Result.Code.OK);
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongo).updateFirst(any(Query.class), update.capture(), eq(Movie.class));
+
+		assertThat((Document) update.getValue().getUpdateObject().get("$set")).containsKey("cast.$[c]");
+		assertThat(update.getValue().getArrayFilters()).hasSize(1);
+		assertThat(update.getValue().getArrayFilters().get(0).asDocument()).containsEntry("c.relationId", 1);
+
+	}
+
+	@Test
+	void castIsPulledByRelationId() {
+
+		when(mongo.findAndModify(any(Query.class), any(Update.class), eq(Movie.class))).thenReturn(movie(5L).setCast(List.of(new Cast().setCharacter("Cobb").setRelationId(1))));
+
+		assertThat(service.deleteCast("m1", 1, null).getExternalCode()).isEqualTo(Result.Code.OK);
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongo).findAndModify(any(Query.class), update.capture(), eq(Movie.class));
+
+		assertThat((Document) update.getValue().getUpdateObject().get("$pull")).containsEntry("cast", new Document("relationId", 1));
+
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void importInsertsEachBatchWithASingleBulkWrite() {
+
+		BulkOperations operations = mock(BulkOperations.class);
+		BulkWriteResult result = mock(BulkWriteResult.class);
+
+		when(mongo.find(any(Query.class), eq(Movie.class))).thenReturn(List.of(new Movie().setTitle("Memento")));
+		when(mongo.bulkOps(any(BulkOperations.BulkMode.class), eq(Movie.class))).thenReturn(operations);
+		when(operations.insert(anyList())).thenReturn(operations);
+		when(operations.execute()).thenReturn(result);
+		when(result.getInsertedCount()).thenReturn(2);
+
+		String lines = """
+				{"title": "Inception"}
+				{"title": "Interstellar"}
+				{"title":
+				{"title": "Inception"}
+				{"title": "Memento"}
+				""";
+
+		ImportReport report = service.importMovies(new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8))).getResult();
+
+		ArgumentCaptor<List<Movie>> documents = ArgumentCaptor.forClass(List.class);
+		verify(operations).insert(documents.capture());
+		verify(operations).execute();
+		verify(credits).putAll(documents.getValue());
+
+		assertThat(documents.getValue()).extracting(Movie::getTitle).containsExactly("Inception", "Interstellar");
+		assertThat(documents.getValue()).allSatisfy(movie -> assertThat(movie.getId()).isNotNull());
+		assertThat(report.getLines()).isEqualTo(5L);
+		assertThat(report.getInserted()).isEqualTo(2L);
+		assertThat(report.getRejected()).isEqualTo(3L);
+		assertThat(report.getErrors()).extracting(ImportError::getLine).containsExactly(3L, 4L, 5L);
+
+	}
+
+	private static Movie movie(Long version) {
+		return new Movie().setId("m1").setTitle("Inception").setVersion(version);
+	}
+
+	private static List<Map<String, Object>> operations() {
+		return new ArrayList<>(List.of(Map.of("op", "replace", "path", "/tagline", "value", "Dreams")));
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import usc.etse.grei.ense.p3.project.model.Assessment;
+import usc.etse.grei.ense.p3.project.model.Movie;
+import usc.etse.grei.ense.p3.project.model.Result;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RatingServiceTest {
+
+	private final MongoTemplate mongo = mock(MongoTemplate.class);
+	private final MovieCache cache = mock(MovieCache.class);
+	private final RatingService ratings = new RatingService(mongo, cache);
+
+	@Test
+	void replaceIncrementsOnlyTheDifference() {
+
+		ratings.replace("m1", 2, 4);
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongo).updateFirst(any(Query.class), update.capture(), eq(Movie.class));
+
+		Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+
+		assertThat(inc).doesNotContainKey("ratings.count");
+		assertThat(inc).containsEntry("ratings.sum", 2).containsEntry("ratings.squares", 12);
+		assertThat(inc).containsEntry("ratings.histogram.2", -1).containsEntry("ratings.histogram.4", 1);
+		assertThat(inc).containsEntry("version", 1);
+		verify(cache).invalidate("m1");
+
+	}
+
+	@Test
+	void removeAllWritesOneUpdatePerMovie() {
+
+		BulkOperations operations = mock(BulkOperations.class);
+		when(mongo.bulkOps(any(BulkOperations.BulkMode.class), eq(Movie.class))).thenReturn(operations);
+
+		ratings.removeAll(List.of(assessment("m1", 4), assessment("m1", 2), assessment("m2", 5)));
+
+		ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+		verify(operations, times(2)).updateOne(queries.capture(), updates.capture());
+		verify(operations).execute();
+
+		int first = "m1".equals(queries.getAllValues().get(0).getQueryObject().get("id")) ? 0 : 1;
+		Document inc = (Document) updates.getAllValues().get(first).getUpdateObject().get("$inc");
+
+		assertThat(inc).containsEntry("ratings.count", -2L).containsEntry("ratings.sum", -6L).containsEntry("ratings.squares", -20L);
+		assertThat(inc).containsEntry("ratings.histogram.4", -1L).containsEntry("ratings.histogram.2", -1L);
+		verify(cache).invalidate("m1");
+		verify(cache).invalidate("m2");
+
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void rebuildMergesOnlyIntoMoviesWhoseVersionWasNotChanged() {
+
+		MongoCollection<Document> collection = mock(MongoCollection.class);
+		AggregateIterable<Document> iterable = mock(AggregateIterable.class);
+
+		when(mongo.getCollectionName(Movie.class)).thenReturn("movies");
+		when(mongo.getCollection("movies")).thenReturn(collection);
+		when(collection.aggregate(anyList())).thenReturn(iterable);
+
+		assertThat(ratings.rebuild().getExternalCode()).isEqualTo(Result.Code.OK);
+
+		ArgumentCaptor<List<Document>> pipeline = ArgumentCaptor.forClass(List.class);
+		verify(collection).aggregate(pipeline.capture());
+		verify(iterable).toCollection();
+		verify(cache).invalidateAll();
+
+		List<Document> stages = pipeline.getValue();
+		Document merge = (Document) stages.get(stages.size() - 1).get("$merge");
+		Document set = (Document) ((List<Document>) merge.get("whenMatched")).get(0).get("$set");
+
+		assertThat(((Document) stages.get(0).get("$project"))).containsEntry("seen", "$version");
+		assertThat(merge).containsEntry("into", "movies").containsEntry("whenNotMatched", "discard");
+		assertThat(set.get("ratings").toString()).contains("$$new.seen");
+		assertThat(set.get("version").toString()).contains("$$new.seen");
+
+	}
+
+	private static Assessment assessment(String movieId, int rating) {
+		return new Assessment().setRating(rating).setMovie(new Movie().setId(movieId));
+	}
+
+}
\ No newline at end of file
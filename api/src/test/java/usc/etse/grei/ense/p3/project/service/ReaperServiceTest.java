@@ -0,0 +1,53 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import usc.etse.grei.ense.p3.project.model.Assessment;
+import usc.etse.grei.ense.p3.project.model.Movie;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReaperServiceTest {
+
+	private final MongoTemplate mongo = mock(MongoTemplate.class);
+	private final CreditService credits = mock(CreditService.class);
+	private final ReaperService reaper = new ReaperService(mongo, credits, new SimpleMeterRegistry(), Duration.ofDays(7), 100, 10);
+
+	@Test
+	void assessmentsArePurgedBeforeTheirMovies() {
+
+		when(mongo.find(any(Query.class), eq(Movie.class))).thenReturn(List.of(new Movie().setId("m1")), List.of(new Movie().setId("m1")), List.of());
+		when(mongo.find(any(Query.class), eq(Assessment.class))).thenReturn(List.of(new Assessment().setId("a1")), List.of());
+		when(mongo.remove(any(Query.class), any(Class.class))).thenReturn(DeleteResult.acknowledged(1));
+
+		reaper.reap();
+
+		InOrder order = inOrder(mongo, credits);
+		order.verify(mongo).remove(any(Query.class), eq(Assessment.class));
+		order.verify(credits).removeAll(List.of("m1"));
+		order.verify(mongo).remove(any(Query.class), eq(Movie.class));
+
+	}
+
+	@Test
+	void nothingIsRemovedWithoutExpiredMovies() {
+
+		when(mongo.find(any(Query.class), eq(Movie.class))).thenReturn(List.of());
+
+		reaper.reap();
+
+		verify(mongo, never()).remove(any(Query.class), any(Class.class));
+		verifyNoInteractions(credits);
+
+	}
+
+}
\ No newline at end of file
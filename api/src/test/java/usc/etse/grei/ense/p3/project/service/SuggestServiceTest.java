@@ -0,0 +1,44 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import usc.etse.grei.ense.p3.project.model.Movie;
+import usc.etse.grei.ense.p3.project.model.Person;
+import usc.etse.grei.ense.p3.project.model.Suggestion;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SuggestServiceTest {
+
+	private final MongoTemplate mongo = mock(MongoTemplate.class, RETURNS_DEEP_STUBS);
+	private final SuggestService suggest = new SuggestService(mongo, 10);
+
+	@Test
+	void changesMadeDuringARebuildAreReplayed() {
+
+		suggest.putMovie(new Movie().setId("1").setTitle("Inception"));
+
+		when(mongo.stream(any(Query.class), eq(Movie.class))).thenAnswer(invocation -> {
+
+			// La lectura de la base de datos es anterior a estas modificaciones
+			suggest.removeMovie("1");
+			suggest.putMovie(new Movie().setId("3").setTitle("Insomnia"));
+
+			return Stream.of(new Movie().setId("1").setTitle("Inception"), new Movie().setId("2").setTitle("Interstellar"));
+
+		});
+		when(mongo.stream(any(Query.class), eq(Person.class))).thenReturn(Stream.empty());
+
+		suggest.rebuild();
+
+		assertThat(suggest.suggestMovies("in", 10).getResult()).extracting(Suggestion::getId).containsExactlyInAnyOrder("2", "3");
+
+	}
+
+}
\ No newline at end of file
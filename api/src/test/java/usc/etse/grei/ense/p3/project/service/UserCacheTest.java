@@ -0,0 +1,33 @@
+package usc.etse.grei.ense.p3.project.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTest {
+
+	private final UserCache cache = new UserCache(new SimpleMeterRegistry(), 300, 100);
+
+	@Test
+	void invalidateDropsTheRelationsOfTheUserOnBothSides() {
+
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.areFriends("ann@mail.com", "bob@mail.com", () -> loads.incrementAndGet() > 0);
+		cache.areFriends("bob@mail.com", "ann@mail.com", () -> loads.incrementAndGet() > 0);
+		cache.areFriends("joann@mail.com", "carl@mail.com", () -> loads.incrementAndGet() > 0);
+
+		cache.invalidate("ann@mail.com");
+
+		cache.areFriends("ann@mail.com", "bob@mail.com", () -> loads.incrementAndGet() > 0);
+		cache.areFriends("bob@mail.com", "ann@mail.com", () -> loads.incrementAndGet() > 0);
+		cache.areFriends("joann@mail.com", "carl@mail.com", () -> loads.incrementAndGet() > 0);
+
+		assertThat(loads).hasValue(5);
+
+	}
+
+}
\ No newline at end of file
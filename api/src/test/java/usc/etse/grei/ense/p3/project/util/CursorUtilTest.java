@@ -0,0 +1,92 @@
+package usc.etse.grei.ense.p3.project.util;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import usc.etse.grei.ense.p3.project.model.Date;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CursorUtilTest {
+
+	private final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+
+	@Test
+	void roundTripKeepsBsonTypes() {
+
+		ObjectId id = new ObjectId();
+		Sort sort = Sort.by("releaseDate", "budget");
+
+		Map<String, Object> keys = new HashMap<>();
+		keys.put("releaseDate", new Date().setDay(16).setMonth(7).setYear(2010));
+		keys.put("budget", 160000000000L);
+		keys.put("_id", id);
+
+		KeysetScrollPosition position = CursorUtil.decode(CursorUtil.encode(ScrollPosition.forward(keys), sort, converter), sort);
+
+		assertThat(position).isNotNull();
+		assertThat(position.getKeys().get("_id")).isEqualTo(id);
+		assertThat(position.getKeys().get("budget")).isEqualTo(160000000000L);
+		assertThat(position.getKeys().get("releaseDate")).isEqualTo(new Document("day", 16).append("month", 7).append("year", 2010));
+
+	}
+
+	@Test
+	void roundTripKeepsNullKeys() {
+
+		Sort sort = Sort.by("tagline");
+
+		Map<String, Object> keys = new HashMap<>();
+		keys.put("tagline", null);
+		keys.put("_id", new ObjectId());
+
+		KeysetScrollPosition position = CursorUtil.decode(CursorUtil.encode(ScrollPosition.forward(keys), sort, converter), sort);
+
+		assertThat(position).isNotNull();
+		assertThat(position.getKeys()).containsEntry("tagline", null);
+
+	}
+
+	@Test
+	void emptyCursorStartsFromTheBeginning() {
+		assertThat(CursorUtil.decode("", Sort.by("title"))).isEqualTo(ScrollPosition.keyset());
+	}
+
+	@Test
+	void rejectsCursorsOfAnotherSort() {
+
+		Sort sort = Sort.by("title");
+		String cursor = CursorUtil.encode(ScrollPosition.forward(Map.of("title", "Inception", "_id", new ObjectId())), sort, converter);
+
+		assertThat(CursorUtil.decode(cursor, Sort.by("releaseDate"))).isNull();
+
+	}
+
+	@Test
+	void rejectsCursorsWhoseKeysDoNotMatchTheSort() {
+
+		Sort sort = Sort.by("title");
+
+		assertThat(CursorUtil.decode(encode(new Document("sort", sort.toString()).append("keys", new Document("title", "Inception"))), sort)).isNull();
+		assertThat(CursorUtil.decode(encode(new Document("sort", sort.toString()).append("keys", new Document("title", "Inception").append("_id", 1).append("budget", 1))), sort)).isNull();
+		assertThat(CursorUtil.decode(encode(new Document("sort", sort.toString()).append("keys", new Document("_id", 1))), sort)).isNull();
+		assertThat(CursorUtil.decode("not a cursor", sort)).isNull();
+
+	}
+
+	private static String encode(Document cursor) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toJson().getBytes(StandardCharsets.UTF_8));
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package usc.etse.grei.ense.p3.project.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import usc.etse.grei.ense.p3.project.model.CountMode;
+import usc.etse.grei.ense.p3.project.model.Person;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PageUtilTest {
+
+	private final MongoTemplate mongo = mock(MongoTemplate.class);
+	private final PageUtil pageUtil;
+
+	PageUtilTest() {
+		when(mongo.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+		pageUtil = new PageUtil(mongo, 30, 100);
+	}
+
+	@Test
+	void noneModeReportsANextPageOnlyIfThereAreMoreElements() {
+
+		when(mongo.find(any(Query.class), eq(Person.class))).thenReturn(List.of(new Person(), new Person(), new Person()));
+
+		Page<Person> full = pageUtil.find(new Criteria(), PageRequest.of(0, 2), Person.class, CountMode.NONE);
+
+		assertThat(full.getContent()).hasSize(2);
+		assertThat(full.hasNext()).isTrue();
+
+		when(mongo.find(any(Query.class), eq(Person.class))).thenReturn(List.of(new Person(), new Person()));
+
+		Page<Person> last = pageUtil.find(new Criteria(), PageRequest.of(1, 2), Person.class, CountMode.NONE);
+
+		assertThat(last.getContent()).hasSize(2);
+		assertThat(last.hasNext()).isFalse();
+		verify(mongo, never()).count(any(Query.class), eq(Person.class));
+
+	}
+
+}
\ No newline at end of file
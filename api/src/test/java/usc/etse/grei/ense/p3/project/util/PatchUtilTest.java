@@ -0,0 +1,62 @@
+package usc.etse.grei.ense.p3.project.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Update;
+import usc.etse.grei.ense.p3.project.model.Cast;
+import usc.etse.grei.ense.p3.project.model.Date;
+import usc.etse.grei.ense.p3.project.model.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatchUtilTest {
+
+	private final PatchUtil patchUtil = new PatchUtil(new ObjectMapper().findAndRegisterModules(), new MongoMappingContext());
+
+	@Test
+	void patchDoesNotModifyNestedObjectsOfTheOriginal() throws Exception {
+
+		Cast cast = new Cast().setCharacter("Cobb");
+		Movie original = new Movie().setTitle("Inception").setReleaseDate(new Date().setYear(2010)).setCast(new ArrayList<>(List.of(cast)));
+
+		Movie patched = patchUtil.patch(original, List.of(operation("replace", "/releaseDate/year", 2011)));
+
+		assertThat(patched.getReleaseDate().getYear()).isEqualTo(2011);
+		assertThat(original.getReleaseDate().getYear()).isEqualTo(2010);
+		assertThat(patched.getCast()).isNotSameAs(original.getCast());
+		assertThat(patched.getCast().get(0)).isNotSameAs(cast);
+
+	}
+
+	@Test
+	void toUpdateUsesStoredFieldNames() {
+
+		Update update = patchUtil.toUpdate(Movie.class, List.of(operation("replace", "/id", "1"), operation("replace", "/releaseDate/year", 2011), operation("remove", "/tagline", null)));
+
+		Document set = (Document) update.getUpdateObject().get("$set");
+		Document unset = (Document) update.getUpdateObject().get("$unset");
+
+		assertThat(set).containsKeys("_id", "releaseDate.year");
+		assertThat(unset).containsKey("tagline");
+
+	}
+
+	@Test
+	void unknownPointersFallBackToJsonPatch() {
+
+		assertThat(patchUtil.toUpdate(Movie.class, List.of(operation("replace", "/unknown", 1)))).isNull();
+		assertThat(patchUtil.toUpdate(Movie.class, List.of(operation("replace", "/cast/0/character", "Mal")))).isNull();
+
+	}
+
+	private static Map<String, Object> operation(String op, String path, Object value) {
+		return value != null ? Map.of("op", op, "path", path, "value", value) : Map.of("op", op, "path", path);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package usc.etse.grei.ense.p3.project.util;
+
+import org.junit.jupiter.api.Test;
+import usc.etse.grei.ense.p3.project.model.Suggestion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+
+	@Test
+	void suggestsTheMostPopularEntriesOfAPrefix() {
+
+		PrefixIndex index = new PrefixIndex(2);
+		index.put(new Suggestion("1", "Inception", 10L));
+		index.put(new Suggestion("2", "Interstellar", 30L));
+		index.put(new Suggestion("3", "Insomnia", 20L));
+		index.put(new Suggestion("4", "Memento", 40L));
+
+		assertThat(index.suggest("ÍN", 10)).extracting(Suggestion::getId).containsExactly("2", "3");
+		assertThat(index.suggest("ince", 10)).extracting(Suggestion::getId).containsExactly("1");
+
+	}
+
+	@Test
+	void memoizedLongPrefixesAreInvalidatedByChanges() {
+
+		PrefixIndex index = new PrefixIndex(10);
+		index.put(new Suggestion("1", "Inception", 10L));
+
+		assertThat(index.suggest("incep", 10)).extracting(Suggestion::getId).containsExactly("1");
+
+		index.put(new Suggestion("2", "Inceptor", 20L));
+
+		assertThat(index.suggest("incep", 10)).extracting(Suggestion::getId).containsExactly("2", "1");
+
+		index.remove("2");
+		index.put(new Suggestion("1", "Memento", 10L));
+
+		assertThat(index.suggest("incep", 10)).isEmpty();
+		assertThat(index.suggest("mem", 10)).extracting(Suggestion::getId).containsExactly("1");
+
+	}
+
+}
\ No newline at end of file
@@ -193,6 +193,32 @@ export default class API {
 
 	}
 
+	async findFriends(id, { page = 0, size = 100 } = { page: 0, size: 100 }) {
+
+		let response = await fetch(`${this.#url}/users/${id}/friends?page=${page}&size=${size}`, {
+
+			method: 'GET',
+			headers: {
+				'Authorization': this.#token
+			}
+
+		})
+
+		if(response.ok) {
+
+			let data = await response.json()
+			let friends = data.data
+
+			return friends
+
+		} else {
+
+			return []
+
+		}
+
+	}
+
 	async findComments(
 		{
 			filter: { movie = '', user = '' } = { movie: '', user: '' },
@@ -75,19 +75,40 @@ export function useUser(id = null) {
 				}
 			})
 
+	return {
+		user: data,
+		status,
+		create,
+		update
+	}
+
+}
+
+export function useFriends(id = null) {
+
+	const [data, setData] = useState([])
+	const userId = id === null ? localStorage.getItem('user') : id
+
+	const load = () => API.instance()
+		.findFriends(userId)
+		.then(friends => setData(friends))
+
+	useEffect(() => {
+		API.instance().findFriends(userId).then(friends => {
+			setData(friends)
+		})
+	}, [userId])
+
 	const updateFriend = (friendId, operations) => API.instance()
 		.updateFriend(userId, friendId, operations)
-		.then(user => setData(user))
+		.then(load)
 
 	const deleteFriend = (friendId) => API.instance()
 		.deleteFriend(userId, friendId)
-		.then(user => setData(user))
+		.then(load)
 
 	return {
-		user: data,
-		status,
-		create,
-		update,
+		friends: data,
 		updateFriend,
 		deleteFriend
 	}
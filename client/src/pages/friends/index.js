@@ -1,5 +1,5 @@
 import { Shell, Separator, Button } from '../../components'
-import { useUser } from '../../hooks'
+import { useUser, useFriends } from '../../hooks'
 import { CakeOutline as Cake, AtSymbolOutline as Email, FlagOutline as Flag } from '@graywolfai/react-heroicons'
 
 import DefaultUserImage from '../profile/images/default_user.png'
@@ -7,7 +7,8 @@ import DefaultUserImage from '../profile/images/default_user.png'
 export default function Friends() {
 
 	const email = localStorage.getItem('user')
-	const { user, updateFriend, deleteFriend } = useUser(email)
+	const { user } = useUser(email)
+	const { friends, updateFriend, deleteFriend } = useFriends(email)
 
 	const handleUpdateFriend = (friend, status) => {
 
@@ -25,13 +26,13 @@ export default function Friends() {
 
 	return <>
 		<Shell className = 'p-4'>
-			<ProfileContent user = { user } updateFriend = { handleUpdateFriend } deleteFriend = { handleDeleteFriend } />
+			<ProfileContent user = { user } friends = { friends } updateFriend = { handleUpdateFriend } deleteFriend = { handleDeleteFriend } />
 		</Shell>
 	</>
 
 }
 
-function ProfileContent({ user, updateFriend, deleteFriend }) {
+function ProfileContent({ user, friends, updateFriend, deleteFriend }) {
 
 	return <>
 
@@ -40,7 +41,7 @@ function ProfileContent({ user, updateFriend, deleteFriend }) {
 			<Background image = { user.picture } />
 
 			<Header user = { user } />
-			<FriendZone user = { user } updateFriend = { updateFriend } deleteFriend = { deleteFriend } />
+			<FriendZone friends = { friends } updateFriend = { updateFriend } deleteFriend = { deleteFriend } />
 
 		</div>
 
@@ -95,9 +96,7 @@ function Tagline({ user }) {
 	</>
 }
 
-function FriendZone({ user, updateFriend, deleteFriend }) {
-
-	let friends = user?.friends
+function FriendZone({ friends, updateFriend, deleteFriend }) {
 
 	let requests = friends?.filter(friend => friend.status === 'PENDING')
 	let accepted = friends?.filter(friend => friend.status === 'ACCEPTED')